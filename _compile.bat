@@ -14,6 +14,9 @@ if not exist temp\*.java (
 REM Compile all Java files in the temp folder
 javac -d bin -cp "lib/*" temp\*.java
 
+REM Copy the built-in code templates next to the compiled classes
+xcopy /s /y /i /q src\*.tpl bin\ >nul
+
 REM Cleanup temp folder
 rmdir /s /q temp
 
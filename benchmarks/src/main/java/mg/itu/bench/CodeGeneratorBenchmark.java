@@ -0,0 +1,84 @@
+package mg.itu.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mg.itu.codegen.BatchCodeGenerator;
+import mg.itu.codegen.CodeGenerator;
+import mg.itu.codegen.InMemoryOutputSink;
+import mg.itu.data.Table;
+
+/**
+ * Full generation of a schema, sequentially and through the batch generator.
+ * Files are written under /dev/shm when available so the disk does not dominate the measurement;
+ * the in-memory variant leaves file I/O out entirely.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeGeneratorBenchmark {
+
+    @Param({ "1", "100", "1000" })
+    public int tableCount;
+
+    private List<Table> tables;
+    private Path outputDirectory;
+    private final InMemoryOutputSink memory = new InMemoryOutputSink();
+
+    @Setup
+    public void setUp() throws IOException {
+        tables = SchemaFixtures.tables(tableCount);
+
+        Path tmpfs = Paths.get("/dev/shm");
+        outputDirectory = Files.isDirectory(tmpfs) && Files.isWritable(tmpfs)
+                ? Files.createTempDirectory(tmpfs, "crudgen-bench")
+                : Files.createTempDirectory("crudgen-bench");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(outputDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void generateAllSequential() throws IOException {
+        for (Table table : tables) {
+            new CodeGenerator(table, outputDirectory.toString()).generateAll();
+        }
+    }
+
+    @Benchmark
+    public List<String> generateAllBatch() throws IOException {
+        return new BatchCodeGenerator(tables, outputDirectory.toString()).generateAll();
+    }
+
+    @Benchmark
+    public List<String> generateAllInMemory() throws IOException {
+        memory.clear();
+        return new BatchCodeGenerator(tables, memory, Runtime.getRuntime().availableProcessors()).generateAll();
+    }
+}
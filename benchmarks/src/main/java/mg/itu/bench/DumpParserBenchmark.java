@@ -0,0 +1,48 @@
+package mg.itu.bench;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mg.itu.data.Table;
+import mg.itu.parser.SchemaParser;
+
+/**
+ * Streaming parse of a whole pg_dump-style schema file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DumpParserBenchmark {
+
+    @Param({ "600" })
+    public int tableCount;
+
+    private String dump;
+
+    @Setup
+    public void setUp() {
+        dump = SchemaFixtures.dump(tableCount);
+    }
+
+    @Benchmark
+    public List<Table> parseSchemas() throws IOException {
+        return SchemaParser.parseSchemas(new StringReader(dump));
+    }
+}
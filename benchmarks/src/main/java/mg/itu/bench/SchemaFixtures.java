@@ -0,0 +1,76 @@
+package mg.itu.bench;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import mg.itu.data.Table;
+import mg.itu.parser.SchemaParser;
+
+/**
+ * Synthetic PostgreSQL schemas shaped like the pg_dump output the generator is fed in practice.
+ */
+final class SchemaFixtures {
+
+    private static final String[] TYPES = {
+        "integer", "bigint", "character varying(255)", "text", "boolean", "numeric(10,2)",
+        "timestamp(0) without time zone", "date", "jsonb", "double precision"
+    };
+
+    private SchemaFixtures() {
+    }
+
+    /**
+     * A single CREATE TABLE with the given number of columns, some of them foreign keys.
+     */
+    static String createTable(String name, int columnCount) {
+        StringBuilder sql = new StringBuilder(64 + columnCount * 48);
+        sql.append("CREATE TABLE public.").append(name).append(" (\n");
+        sql.append("    id bigint NOT NULL PRIMARY KEY");
+        for (int i = 1; i < columnCount; i++) {
+            sql.append(",\n    ");
+            if (i % 7 == 0) {
+                sql.append("ref_").append(i).append("_id bigint REFERENCES public.refs_").append(i).append("(id) ON DELETE SET NULL");
+            } else {
+                sql.append("column_").append(i).append(' ').append(TYPES[i % TYPES.length]);
+                if (i % 3 == 0) sql.append(" NOT NULL");
+                if (i % 5 == 0) sql.append(" DEFAULT 'value, with (parens) and not null'");
+            }
+        }
+        sql.append(",\n    created_at timestamp(0) without time zone");
+        sql.append(",\n    updated_at timestamp(0) without time zone");
+        sql.append("\n)");
+        return sql.toString();
+    }
+
+    /**
+     * A schema-only dump of the given number of tables, with the noise pg_dump puts around them:
+     * settings, functions with dollar-quoted bodies, comments, ownership and constraints added afterwards.
+     */
+    static String dump(int tableCount) {
+        StringBuilder sql = new StringBuilder(tableCount * 1200);
+        sql.append("--\n-- PostgreSQL database dump\n--\n\n");
+        sql.append("SET statement_timeout = 0;\nSET client_encoding = 'UTF8';\n");
+        sql.append("SELECT pg_catalog.set_config('search_path', '', false);\n\n");
+
+        for (int t = 0; t < tableCount; t++) {
+            String name = "table_" + t + "s";
+            sql.append("CREATE FUNCTION public.touch_").append(t).append("() RETURNS trigger\n    LANGUAGE plpgsql\n    AS $$\n");
+            sql.append("BEGIN\n  NEW.updated_at = now(); -- keep; in sync\n  RETURN NEW;\nEND;\n$$;\n\n");
+            sql.append(createTable(name, 12)).append(";\n\n");
+            sql.append("ALTER TABLE public.").append(name).append(" OWNER TO app;\n");
+            sql.append("COMMENT ON TABLE public.").append(name).append(" IS 'it''s table ").append(t).append("';\n\n");
+        }
+
+        for (int t = 1; t < tableCount; t++) {
+            sql.append("ALTER TABLE ONLY public.table_").append(t).append("s\n");
+            sql.append("    ADD CONSTRAINT table_").append(t).append("s_parent_fkey FOREIGN KEY (column_1) REFERENCES public.table_")
+               .append(t - 1).append("s(id);\n\n");
+        }
+        return sql.toString();
+    }
+
+    static List<Table> tables(int tableCount) throws IOException {
+        return SchemaParser.parseSchemas(new StringReader(dump(tableCount)));
+    }
+}
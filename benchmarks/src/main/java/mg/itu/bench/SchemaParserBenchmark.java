@@ -0,0 +1,54 @@
+package mg.itu.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mg.itu.data.Table;
+import mg.itu.parser.SchemaParser;
+
+/**
+ * Parsing throughput for a single CREATE TABLE of growing width.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaParserBenchmark {
+
+    @Param({ "small", "wide", "huge" })
+    public String shape;
+
+    private String schema;
+
+    @Setup
+    public void setUp() {
+        switch (shape) {
+            case "small":
+                schema = SchemaFixtures.createTable("users", 8);
+                break;
+            case "wide":
+                schema = SchemaFixtures.createTable("events", 150);
+                break;
+            default:
+                schema = SchemaFixtures.createTable("measurements", 1500);
+        }
+    }
+
+    @Benchmark
+    public Table parseSchema() {
+        return SchemaParser.parseSchema(schema);
+    }
+}
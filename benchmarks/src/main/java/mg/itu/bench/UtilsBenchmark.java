@@ -0,0 +1,94 @@
+package mg.itu.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import mg.itu.utils.Utils;
+
+/**
+ * The naming helpers called for every table and foreign key during generation.
+ *
+ * The helpers memoize their results, so the plain benchmarks measure cache hits, as repeated names
+ * are during a run. The uncached ones go through more distinct names than the memo keeps, so that
+ * every call computes its result, as the first one for a name does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+
+    private final String[] names = {
+        "users", "categories", "order_items", "addresses", "statuses", "people",
+        "product_variant_prices", "audit_log_entries", "boxes", "news"
+    };
+
+    // Well over the capacity of the memo, each name comes back only after it has been cleared
+    private static final int DISTINCT_NAMES = 100_000;
+
+    private String[] distinctNames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        distinctNames = new String[DISTINCT_NAMES];
+        for (int i = 0; i < DISTINCT_NAMES; i++) {
+            distinctNames[i] = "table" + i + "_" + names[i % names.length];
+        }
+    }
+
+    @Benchmark
+    public void toSingular(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(Utils.toSingular(name));
+        }
+    }
+
+    @Benchmark
+    public void toPascalCase(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(Utils.toPascalCase(name));
+        }
+    }
+
+    @Benchmark
+    public void toCamelCase(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(Utils.toCamelCase(name));
+        }
+    }
+
+    @Benchmark
+    public String toSingularUncached() {
+        return Utils.toSingular(nextDistinctName());
+    }
+
+    @Benchmark
+    public String toPascalCaseUncached() {
+        return Utils.toPascalCase(nextDistinctName());
+    }
+
+    @Benchmark
+    public String toCamelCaseUncached() {
+        return Utils.toCamelCase(nextDistinctName());
+    }
+
+    private String nextDistinctName() {
+        String name = distinctNames[next];
+        next = (next + 1) % DISTINCT_NAMES;
+        return name;
+    }
+}
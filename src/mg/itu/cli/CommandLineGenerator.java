@@ -0,0 +1,162 @@
+package mg.itu.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import mg.itu.codegen.BatchCodeGenerator;
+import mg.itu.codegen.DirectoryOutputSink;
+import mg.itu.codegen.OutputSink;
+import mg.itu.codegen.ZipOutputSink;
+import mg.itu.data.Schema;
+import mg.itu.data.Table;
+import mg.itu.parser.SchemaCache;
+import mg.itu.parser.SchemaFileCache;
+import mg.itu.parser.SchemaParser;
+
+/**
+ * Headless generator: parses a schema file or directory and generates the CRUD code of its tables.
+ *
+ * Deliberately free of any AWT/Swing dependency so it starts fast and runs in CI containers.
+ */
+public class CommandLineGenerator {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURE = 1;
+    public static final int EXIT_USAGE = 2;
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private Path workingDirectory;
+    private SchemaCache schemaCache;
+
+    public CommandLineGenerator(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Directory relative paths are resolved against, instead of the process working directory.
+     */
+    public void setWorkingDirectory(Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Cache reusing the tables of schema files that did not change since a previous run.
+     */
+    public void setSchemaCache(SchemaCache schemaCache) {
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * Runs the generator and returns the process exit code.
+     */
+    public int run(String[] args) {
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println();
+            err.print(CommandLineOptions.USAGE);
+            return EXIT_USAGE;
+        }
+
+        if (options.isHelp()) {
+            out.print(CommandLineOptions.USAGE);
+            return EXIT_OK;
+        }
+
+        try {
+            return generate(options);
+        } catch (IOException | RuntimeException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int generate(CommandLineOptions options) throws IOException {
+        long start = System.nanoTime();
+
+        List<Path> schemaFiles = findSchemaFiles(resolve(options.getSchemaPath()));
+        List<Table> parsedTables;
+        if (schemaCache != null) {
+            parsedTables = schemaCache.parseSchemas(schemaFiles);
+        } else if (options.getSchemaCacheDirectory() != null) {
+            parsedTables = new SchemaFileCache(resolve(options.getSchemaCacheDirectory())).parseSchemas(schemaFiles);
+        } else {
+            parsedTables = SchemaParser.parseSchemas(schemaFiles);
+        }
+
+        List<Table> tables = new ArrayList<>();
+        for (Table table : parsedTables) {
+            if (options.acceptsTable(table.getName())) {
+                tables.add(table);
+            }
+        }
+
+        if (tables.isEmpty()) {
+            err.println("Error: no table to generate in " + options.getSchemaPath());
+            return EXIT_FAILURE;
+        }
+
+        long parsed = System.nanoTime();
+
+        List<String> files;
+        Path output = resolve(options.getOutputPath());
+        try (OutputSink sink = options.isZip() ? new ZipOutputSink(output) : new DirectoryOutputSink(output)) {
+            BatchCodeGenerator generator = new BatchCodeGenerator(tables, sink, options.getThreads());
+            generator.setIncremental(options.isIncremental());
+            generator.setOptions(options.getGeneratorOptions());
+            generator.setSchema(new Schema(parsedTables));
+            if (options.getTemplateDirectory() != null) {
+                generator.setTemplateDirectory(resolve(options.getTemplateDirectory()).toString());
+            }
+            files = generator.generateAll();
+        }
+
+        long generated = System.nanoTime();
+
+        if (!options.isQuiet()) {
+            out.println("Parsed " + tables.size() + " table(s) in " + millis(start, parsed) + " ms");
+            out.println("Wrote " + files.size() + " file(s) to " + output + " in " + millis(parsed, generated) + " ms");
+        }
+        return EXIT_OK;
+    }
+
+    private Path resolve(String path) {
+        return workingDirectory != null ? workingDirectory.resolve(path) : Paths.get(path);
+    }
+
+    /**
+     * A schema path is either a single file or a directory whose *.sql files are read in name order.
+     */
+    private static List<Path> findSchemaFiles(Path schemaPath) throws IOException {
+        if (!Files.isDirectory(schemaPath)) {
+            if (!Files.isRegularFile(schemaPath)) {
+                throw new IOException("Schema not found: " + schemaPath);
+            }
+            return Collections.singletonList(schemaPath);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(schemaPath)) {
+            entries.filter(path -> path.getFileName().toString().toLowerCase().endsWith(".sql"))
+                   .filter(Files::isRegularFile)
+                   .sorted()
+                   .forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long millis(long from, long to) {
+        return (to - from) / 1_000_000;
+    }
+}
@@ -0,0 +1,309 @@
+package mg.itu.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import mg.itu.codegen.GeneratorOptions;
+import mg.itu.codegen.PaginationMode;
+
+/**
+ * Options of the headless generator, parsed from the command line.
+ * Invalid usage is reported with an IllegalArgumentException carrying the message to show.
+ */
+public class CommandLineOptions {
+
+    public static final String USAGE =
+        "Usage: crudgen [options] <schema.sql | schema-directory> <output>\n"
+        + "\n"
+        + "Generates the Laravel model, controller, service, resources and routes of every table\n"
+        + "found in a PostgreSQL schema file, or in the *.sql files of a directory.\n"
+        + "\n"
+        + "Options:\n"
+        + "  -t, --tables <names>     only generate these tables (comma separated, * wildcard)\n"
+        + "  -x, --exclude <names>    skip these tables (comma separated, * wildcard)\n"
+        + "  -i, --incremental        only rewrite files whose content changed\n"
+        + "  -z, --zip                write a zip archive at <output> instead of a directory\n"
+        + "      --templates <dir>    directory of template overrides (model.tpl, ...)\n"
+        + "      --schema-cache <dir> keep the parsed schema in <dir>, reused while the schema\n"
+        + "                           files and the parser build are unchanged\n"
+        + "  -j, --threads <n>        number of generator threads (default: all cores)\n"
+        + "      --pagination <mode>  index() pagination: offset (default), cursor or none\n"
+        + "      --table-pagination <table=mode[:column],...>\n"
+        + "                           per-table pagination, cursor mode optionally on an\n"
+        + "                           indexed column instead of the primary key\n"
+        + "      --page-size <n>      default page size (default: " + GeneratorOptions.DEFAULT_PAGE_SIZE + ")\n"
+        + "      --max-page-size <n>  largest page size clients may ask for (default: " + GeneratorOptions.DEFAULT_MAX_PAGE_SIZE + ")\n"
+        + "      --export             add a streamed GET /<table>/export endpoint (NDJSON or JSON)\n"
+        + "      --export-chunk-size <n>\n"
+        + "                           rows fetched per query by the export (default: " + GeneratorOptions.DEFAULT_EXPORT_CHUNK_SIZE + ")\n"
+        + "      --bulk               add POST, PATCH and DELETE /<table>/bulk endpoints\n"
+        + "      --bulk-chunk-size <n>\n"
+        + "                           rows written per statement by the bulk endpoints (default: " + GeneratorOptions.DEFAULT_BULK_CHUNK_SIZE + ")\n"
+        + "      --etags              ETag, Last-Modified and 304 answers on show and index\n"
+        + "                           of the tables with an updated_at column\n"
+        + "      --migrations         also generate migrations, indexing unindexed foreign keys,\n"
+        + "                           and a report of the added indexes in index-report.md\n"
+        + "      --cache              read findById and listings through Laravel's cache\n"
+        + "      --cache-ttl <seconds>\n"
+        + "                           lifetime of cached reads (default: " + GeneratorOptions.DEFAULT_CACHE_TTL + ")\n"
+        + "      --table-cache-ttl <table=seconds,...>\n"
+        + "                           per-table lifetime of cached reads\n"
+        + "  -q, --quiet              only print errors\n"
+        + "  -h, --help               show this help\n";
+
+    private String schemaPath;
+    private String outputPath;
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+    private boolean incremental;
+    private boolean zip;
+    private String templateDirectory;
+    private String schemaCacheDirectory;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private final GeneratorOptions generatorOptions = new GeneratorOptions();
+    private int pageSize = GeneratorOptions.DEFAULT_PAGE_SIZE;
+    private int maxPageSize = GeneratorOptions.DEFAULT_MAX_PAGE_SIZE;
+    private boolean quiet;
+    private boolean help;
+
+    public static CommandLineOptions parse(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        List<String> positional = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-t":
+                case "--tables":
+                    options.includes.addAll(toPatterns(value(args, ++i, arg)));
+                    break;
+                case "-x":
+                case "--exclude":
+                    options.excludes.addAll(toPatterns(value(args, ++i, arg)));
+                    break;
+                case "-i":
+                case "--incremental":
+                    options.incremental = true;
+                    break;
+                case "-z":
+                case "--zip":
+                    options.zip = true;
+                    break;
+                case "--templates":
+                    options.templateDirectory = value(args, ++i, arg);
+                    break;
+                case "--schema-cache":
+                    options.schemaCacheDirectory = value(args, ++i, arg);
+                    break;
+                case "-j":
+                case "--threads":
+                    options.threads = parsePositive(value(args, ++i, arg), arg);
+                    break;
+                case "--pagination":
+                    options.generatorOptions.setPagination(PaginationMode.parse(value(args, ++i, arg)));
+                    break;
+                case "--table-pagination":
+                    options.parseTablePagination(value(args, ++i, arg));
+                    break;
+                case "--page-size":
+                    options.pageSize = parsePositive(value(args, ++i, arg), arg);
+                    break;
+                case "--max-page-size":
+                    options.maxPageSize = parsePositive(value(args, ++i, arg), arg);
+                    break;
+                case "--export":
+                    options.generatorOptions.setExport(true);
+                    break;
+                case "--export-chunk-size":
+                    options.generatorOptions.setExportChunkSize(parsePositive(value(args, ++i, arg), arg));
+                    break;
+                case "--bulk":
+                    options.generatorOptions.setBulk(true);
+                    break;
+                case "--bulk-chunk-size":
+                    options.generatorOptions.setBulkChunkSize(parsePositive(value(args, ++i, arg), arg));
+                    break;
+                case "--etags":
+                    options.generatorOptions.setConditionalRequests(true);
+                    break;
+                case "--migrations":
+                    options.generatorOptions.setMigrations(true);
+                    break;
+                case "--cache":
+                    options.generatorOptions.setCache(true);
+                    break;
+                case "--cache-ttl":
+                    options.generatorOptions.setCacheTtl(parsePositive(value(args, ++i, arg), arg));
+                    break;
+                case "--table-cache-ttl":
+                    options.parseTableCacheTtl(value(args, ++i, arg));
+                    break;
+                case "-q":
+                case "--quiet":
+                    options.quiet = true;
+                    break;
+                case "-h":
+                case "--help":
+                    options.help = true;
+                    break;
+                default:
+                    if (arg.startsWith("-") && arg.length() > 1) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    positional.add(arg);
+            }
+        }
+
+        if (options.help) {
+            return options;
+        }
+        if (positional.size() != 2) {
+            throw new IllegalArgumentException("Expected a schema path and an output path");
+        }
+        if (options.incremental && options.zip) {
+            throw new IllegalArgumentException("--incremental cannot be combined with --zip");
+        }
+
+        options.generatorOptions.setPageSizes(options.pageSize, options.maxPageSize);
+
+        options.schemaPath = positional.get(0);
+        options.outputPath = positional.get(1);
+        return options;
+    }
+
+    /**
+     * Returns true if the table passes the --tables and --exclude filters.
+     */
+    public boolean acceptsTable(String tableName) {
+        if (!includes.isEmpty() && !matchesAny(includes, tableName)) {
+            return false;
+        }
+        return !matchesAny(excludes, tableName);
+    }
+
+    public String getSchemaPath() {
+        return schemaPath;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public boolean isZip() {
+        return zip;
+    }
+
+    public String getTemplateDirectory() {
+        return templateDirectory;
+    }
+
+    public String getSchemaCacheDirectory() {
+        return schemaCacheDirectory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public GeneratorOptions getGeneratorOptions() {
+        return generatorOptions;
+    }
+
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String tableName) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(tableName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * users=cursor,audit_logs=cursor:created_at,countries=none
+     */
+    private void parseTablePagination(String list) {
+        for (String item : list.split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) continue;
+
+            int equals = item.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected table=mode[:column] in --table-pagination: " + item);
+            }
+            String tableName = item.substring(0, equals).trim();
+            String mode = item.substring(equals + 1);
+            int colon = mode.indexOf(':');
+            if (colon >= 0) {
+                generatorOptions.setCursorColumn(tableName, mode.substring(colon + 1).trim());
+                mode = mode.substring(0, colon);
+            }
+            generatorOptions.setPagination(tableName, PaginationMode.parse(mode));
+        }
+    }
+
+    /**
+     * users=60,countries=86400
+     */
+    private void parseTableCacheTtl(String list) {
+        for (String item : list.split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) continue;
+
+            int equals = item.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected table=seconds in --table-cache-ttl: " + item);
+            }
+            generatorOptions.setCacheTtl(item.substring(0, equals).trim(),
+                    parsePositive(item.substring(equals + 1).trim(), "--table-cache-ttl"));
+        }
+    }
+
+    private static List<Pattern> toPatterns(String list) {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String name : list.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+
+            // Only * is special: users_* matches users_roles and users_tokens
+            StringBuilder regex = new StringBuilder();
+            for (String part : name.split("\\*", -1)) {
+                if (regex.length() > 0) regex.append(".*");
+                regex.append(Pattern.quote(part));
+            }
+            patterns.add(Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE));
+        }
+        return patterns;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int parsePositive(String value, String option) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 1) {
+                throw new NumberFormatException();
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package mg.itu.codegen;
+
+/**
+ * The files generated for each table, in generation order.
+ */
+public enum Artifact {
+    MODEL("model"),
+    CONTROLLER("controller"),
+    SERVICE("service"),
+    RESOURCE("resource"),
+    COLLECTION("collection"),
+    ROUTES("routes"),
+    MIGRATION("migration");
+
+    private final String templateName;
+
+    Artifact(String templateName) {
+        this.templateName = templateName;
+    }
+
+    /**
+     * Name of the template the artifact is rendered from.
+     */
+    public String getTemplateName() {
+        return templateName;
+    }
+}
@@ -0,0 +1,356 @@
+package mg.itu.codegen;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import mg.itu.data.Schema;
+import mg.itu.data.Table;
+import mg.itu.template.TemplateEngine;
+
+/**
+ * Generates the artifacts of a whole schema, fanning out one task per table and artifact
+ * on a bounded thread pool.
+ *
+ * Tasks are submitted and collected in table order then {@link Artifact} order, so the returned
+ * file list and the reported failures are the same from one run to the next regardless of scheduling.
+ *
+ * A run can be cancelled from another thread: the tasks not started yet are dropped, the files being
+ * written are completed, and {@code generateAll()} then throws a {@link CancellationException}.
+ */
+public class BatchCodeGenerator {
+
+    // Schema-wide files generated once per run, next to the per-table artifacts
+    private static final String PROVIDER_TEMPLATE = "provider";
+    private static final String PROVIDER_FILE = "CrudServiceProvider.php";
+    private static final String FOREIGN_KEYS_TEMPLATE = "foreign_keys";
+    private static final String FOREIGN_KEYS_FILE = "0001_01_02_000000_add_foreign_keys.php";
+    private static final String INDEX_REPORT_TEMPLATE = "index_report";
+    private static final String INDEX_REPORT_FILE = "index-report.md";
+
+    private final List<Table> tables;
+    private final Set<String> tableNames = new HashSet<>();
+    private final OutputSink sink;
+    private final int parallelism;
+    private boolean incremental;
+    private TemplateEngine templates = TemplateEngine.getDefault();
+    private GeneratorOptions options = new GeneratorOptions();
+    private Schema schema;
+    private GenerationProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    public BatchCodeGenerator(List<Table> tables, String outputPath) {
+        this(tables, outputPath, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchCodeGenerator(List<Table> tables, String outputPath, int parallelism) {
+        this(tables, new DirectoryOutputSink(Paths.get(outputPath)), parallelism);
+    }
+
+    /**
+     * Creates a generator writing into the given sink. The sink is not closed by the generator.
+     */
+    public BatchCodeGenerator(List<Table> tables, OutputSink sink, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.tables = tables;
+        for (Table table : tables) {
+            tableNames.add(table.getName());
+        }
+        this.sink = sink;
+        this.parallelism = parallelism;
+        this.schema = new Schema(tables);
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * In incremental mode a {@link GenerationManifest} is kept in the output directory:
+     * unchanged tables are skipped and unchanged files are not rewritten.
+     * Only supported with a {@link DirectoryOutputSink}.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Renders with the templates of the given directory where present ({@code model.tpl},
+     * {@code controller.tpl}, ...), falling back to the built-in ones.
+     */
+    public void setTemplateDirectory(String templateDirectory) {
+        this.templates = templateDirectory == null ? TemplateEngine.getDefault() : new TemplateEngine(Paths.get(templateDirectory));
+    }
+
+    public GeneratorOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(GeneratorOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Whole schema the generated tables belong to, when only some of its tables are generated.
+     * Defaults to the generated tables themselves.
+     */
+    public void setSchema(Schema schema) {
+        this.schema = schema;
+    }
+
+    public void setProgressListener(GenerationProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Requests the current run to stop as soon as the files being written are complete.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Generates every artifact of every table and returns the written file paths in deterministic order.
+     * Paths are relative to the sink; in incremental mode, only the files that were actually
+     * (re)written are returned.
+     *
+     * @throws BatchGenerationException if any artifact failed; the others are still generated
+     * @throws CancellationException if {@link #cancel()} was called; the tables completed so far
+     *         are kept in the manifest
+     */
+    public List<String> generateAll() throws IOException {
+        GenerationManifest manifest = null;
+        if (incremental) {
+            if (!(sink instanceof DirectoryOutputSink)) {
+                throw new IllegalStateException("Incremental generation needs a directory output");
+            }
+            manifest = GenerationManifest.load(((DirectoryOutputSink) sink).getRoot().toString());
+        }
+        String settingsDigest = manifest != null ? getSettingsDigest() : null;
+
+        // Tables whose definition did not change since the manifest was written are left alone
+        List<Table> pending = new ArrayList<>(tables.size());
+        List<String> fingerprints = new ArrayList<>(tables.size());
+        int completed = 0;
+        for (Table table : tables) {
+            String fingerprint = manifest != null ? fingerprint(table, settingsDigest) : null;
+            if (manifest != null && manifest.isUpToDate(table, fingerprint)) {
+                manifest.keep(table);
+                notifyProgress(table, ++completed);
+            } else {
+                pending.add(table);
+                fingerprints.add(fingerprint);
+            }
+        }
+        if (manifest != null) {
+            for (Table table : schema.getTables()) {
+                if (!tableNames.contains(table.getName())) {
+                    manifest.keepUnselected(table);
+                }
+            }
+        }
+
+        try {
+            List<String> files = new ArrayList<>();
+            if (generateSharedFile(manifest, PROVIDER_TEMPLATE, PROVIDER_FILE, Collections.emptyMap())) {
+                files.add(PROVIDER_FILE);
+            }
+            if (options.isMigrations()) {
+                Map<String, Object> context = getMigrationContext();
+                if (generateSharedFile(manifest, FOREIGN_KEYS_TEMPLATE, FOREIGN_KEYS_FILE, context)) {
+                    files.add(FOREIGN_KEYS_FILE);
+                }
+                if (generateSharedFile(manifest, INDEX_REPORT_TEMPLATE, INDEX_REPORT_FILE, context)) {
+                    files.add(INDEX_REPORT_FILE);
+                }
+            }
+            files.addAll(generate(pending, fingerprints, manifest, completed));
+            return files;
+        } finally {
+            if (manifest != null) {
+                manifest.save();
+            }
+        }
+    }
+
+    /**
+     * Writes a schema-wide file (the service provider enabling the N+1 guards, the foreign keys
+     * migration, the index report), unless the manifest shows it is unchanged.
+     */
+    private boolean generateSharedFile(GenerationManifest manifest, String templateName, String fileName,
+            Map<String, Object> context) throws IOException {
+        String content = templates.getTemplate(templateName).render(context);
+        if (manifest != null && !manifest.recordSharedFile(fileName, content)) {
+            return false;
+        }
+        sink.write(fileName, content);
+        return true;
+    }
+
+    /**
+     * Foreign keys, added and skipped indexes of every generated table, unchanged ones included:
+     * these files cover the whole run, not only the tables that changed.
+     */
+    private Map<String, Object> getMigrationContext() {
+        List<Map<String, Object>> foreignKeyTables = new ArrayList<>();
+        List<Map<String, Object>> addedIndexes = new ArrayList<>();
+        List<Map<String, Object>> skippedIndexes = new ArrayList<>();
+        for (Table table : tables) {
+            MigrationPlan migration = new MigrationPlan(table, schema);
+            if (!migration.getForeignKeys().isEmpty()) {
+                Map<String, Object> foreignKeyTable = new HashMap<>();
+                foreignKeyTable.put("tableName", table.getName());
+                foreignKeyTable.put("foreignKeys", migration.getForeignKeys());
+                foreignKeyTables.add(foreignKeyTable);
+            }
+            addedIndexes.addAll(migration.getAddedIndexes());
+            skippedIndexes.addAll(migration.getSkippedIndexes());
+        }
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("foreignKeyTables", foreignKeyTables);
+        context.put("addedIndexes", addedIndexes);
+        context.put("skippedIndexes", skippedIndexes);
+        return context;
+    }
+
+    /**
+     * Digest of the run-wide inputs: a template or option change must invalidate every table.
+     */
+    private String getSettingsDigest() throws IOException {
+        StringBuilder settings = new StringBuilder(options.getDigest()).append('\0');
+        for (Artifact artifact : Artifact.values()) {
+            settings.append(templates.getTemplate(artifact.getTemplateName()).getSource()).append('\0');
+        }
+        settings.append(templates.getTemplate(PROVIDER_TEMPLATE).getSource()).append('\0');
+        return GenerationManifest.sha256(settings.toString());
+    }
+
+    /**
+     * A table's output also depends on the tables it references and on the tables referencing it
+     * (inverse relations), and on whether they are generated in the same run, so their definitions
+     * are part of its fingerprint.
+     */
+    private String fingerprint(Table table, String settingsDigest) {
+        StringBuilder settings = new StringBuilder(settingsDigest);
+        for (Table referenced : schema.getReferencedTables(table)) {
+            settings.append('\0').append(tableNames.contains(referenced.getName()) ? '+' : '-')
+                    .append(GenerationManifest.fingerprint(referenced, ""));
+        }
+        for (Table referencing : schema.getReferencingTables(table)) {
+            settings.append("\0<").append(tableNames.contains(referencing.getName()) ? '+' : '-')
+                    .append(GenerationManifest.fingerprint(referencing, ""));
+        }
+        return GenerationManifest.fingerprint(table, settings.toString());
+    }
+
+    private List<String> generate(List<Table> tables, List<String> fingerprints, GenerationManifest manifest, int completed) throws IOException {
+        int taskCount = tables.size() * Artifact.values().length;
+        List<String> files = new ArrayList<>(taskCount);
+        if (taskCount == 0) {
+            return files;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, taskCount), runnable -> {
+            Thread thread = new Thread(runnable, "codegen-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<String>> futures = new ArrayList<>(taskCount);
+            for (Table table : tables) {
+                CodeGenerator generator = new CodeGenerator(table, sink, manifest, templates, options);
+                generator.setSchema(schema);
+                generator.setGeneratedTables(tableNames);
+                for (Artifact artifact : Artifact.values()) {
+                    futures.add(executor.submit(() -> {
+                        if (cancelled) {
+                            throw new CancellationException("Generation cancelled");
+                        }
+                        return generator.generate(artifact);
+                    }));
+                }
+            }
+
+            List<BatchGenerationException.Failure> failures = new ArrayList<>();
+            int index = 0;
+            for (int i = 0; i < tables.size(); i++) {
+                Table table = tables.get(i);
+                boolean succeeded = true;
+
+                for (Artifact artifact : Artifact.values()) {
+                    try {
+                        String file = futures.get(index++).get();
+                        if (file != null) {
+                            files.add(file);
+                        }
+                    } catch (ExecutionException e) {
+                        if (cancelled) {
+                            throw awaitCancellation(executor);
+                        }
+                        failures.add(new BatchGenerationException.Failure(table.getName(), artifact, e.getCause()));
+                        succeeded = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Generation interrupted", e);
+                    }
+                }
+
+                // A failed table keeps no fingerprint, so the next incremental run retries it
+                if (manifest != null && succeeded) {
+                    manifest.recordTable(table, fingerprints.get(i));
+                }
+                if (cancelled) {
+                    throw awaitCancellation(executor);
+                }
+                notifyProgress(table, ++completed);
+            }
+
+            if (!failures.isEmpty()) {
+                throw new BatchGenerationException(failures);
+            }
+            return files;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Lets the tasks already running finish their file, so that nothing is written after
+     * {@code generateAll()} returned, and returns the exception to throw.
+     */
+    private static CancellationException awaitCancellation(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new CancellationException("Generation cancelled");
+    }
+
+    private void notifyProgress(Table table, int completed) {
+        if (progressListener != null) {
+            progressListener.tableCompleted(table, completed, tables.size());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package mg.itu.codegen;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by {@link BatchCodeGenerator} when one or more artifacts failed to generate.
+ * Every failure is kept (in table and artifact order) and also attached as a suppressed exception.
+ */
+public class BatchGenerationException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAX_LISTED_FAILURES = 5;
+
+    private final List<Failure> failures;
+
+    public BatchGenerationException(List<Failure> failures) {
+        super(buildMessage(failures));
+        this.failures = Collections.unmodifiableList(failures);
+        for (Failure failure : failures) {
+            addSuppressed(failure.getCause());
+        }
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    private static String buildMessage(List<Failure> failures) {
+        StringBuilder message = new StringBuilder();
+        message.append(failures.size()).append(" artifact(s) failed to generate");
+
+        for (int i = 0; i < failures.size() && i < MAX_LISTED_FAILURES; i++) {
+            Failure failure = failures.get(i);
+            message.append("\n - ").append(failure.getTableName()).append(" ").append(failure.getArtifact())
+                   .append(": ").append(failure.getCause().getMessage());
+        }
+        if (failures.size() > MAX_LISTED_FAILURES) {
+            message.append("\n - ... and ").append(failures.size() - MAX_LISTED_FAILURES).append(" more");
+        }
+        return message.toString();
+    }
+
+    public static class Failure {
+        private final String tableName;
+        private final Artifact artifact;
+        private final Throwable cause;
+
+        public Failure(String tableName, Artifact artifact, Throwable cause) {
+            this.tableName = tableName;
+            this.artifact = artifact;
+            this.cause = cause;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public Artifact getArtifact() {
+            return artifact;
+        }
+
+        public Throwable getCause() {
+            return cause;
+        }
+    }
+}
@@ -1,544 +1,509 @@
 package mg.itu.codegen;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import mg.itu.data.Column;
+import mg.itu.data.ForeignKey;
+import mg.itu.data.PhpType;
+import mg.itu.data.Schema;
 import mg.itu.data.Table;
-import mg.itu.utils.Utils;
+import mg.itu.template.Template;
+import mg.itu.template.TemplateEngine;
+import mg.itu.utils.Inflector;
 
 public class CodeGenerator {
 
+    // Types left out of the columns selected on included relations, as they can be arbitrarily large
+    private static final Set<String> LARGE_TYPES = Set.of("text", "json", "jsonb", "bytea", "xml", "tsvector");
+
+    // Most bind parameters PostgreSQL accepts in one statement
+    private static final int MAX_BIND_PARAMETERS = 65535;
+
     private Table table;
-    private String outputPath;
+    private OutputSink sink;
+    private GenerationManifest manifest;
+    private TemplateEngine templates;
+    private GeneratorOptions options;
+    private Schema schema;
+    private Set<String> generatedTables;
+    private Map<String, Object> context;
     
     public CodeGenerator(Table table, String outputPath) {
+        this(table, new DirectoryOutputSink(Paths.get(outputPath)), null, TemplateEngine.getDefault());
+    }
+
+    public CodeGenerator(Table table, OutputSink sink, GenerationManifest manifest, TemplateEngine templates) {
+        this(table, sink, manifest, templates, new GeneratorOptions());
+    }
+
+    /**
+     * Creates a generator that renders with the given templates and options into the given sink and, if a
+     * manifest is given, records its files in it and leaves files whose content is unchanged untouched.
+     */
+    public CodeGenerator(Table table, OutputSink sink, GenerationManifest manifest, TemplateEngine templates, GeneratorOptions options) {
         this.table = table;
-        this.outputPath = outputPath;
+        this.sink = sink;
+        this.manifest = manifest;
+        this.templates = templates;
+        this.options = options;
     }
     
-    public void generateAll() throws IOException {
-        generateModel();
-        generateController();
-        generateService();
-        generateRoutes();
+    /**
+     * Schema the table belongs to, used to know the columns of the tables it references.
+     */
+    public void setSchema(Schema schema) {
+        this.schema = schema;
     }
-    
-    private void generateModel() throws IOException {
-        String modelName = table.getModelName();
-        StringBuilder modelCode = new StringBuilder();
-        
-        modelCode.append("<?php\n\n");
-        modelCode.append("namespace App\\Models;\n\n");
-        modelCode.append("use Illuminate\\Database\\Eloquent\\Factories\\HasFactory;\n");
-        modelCode.append("use Illuminate\\Database\\Eloquent\\Model;\n\n");
-        modelCode.append("class ").append(modelName).append(" extends Model\n");
-        modelCode.append("{\n");
-        modelCode.append("    use HasFactory;\n\n");
-        
-        // Table name
-        modelCode.append("    protected $table = '").append(table.getName()).append("';\n\n");
-        
-        // Fillable fields
-        modelCode.append("    protected $fillable = [\n");
-        for (Column column : table.getColumns()) {
-            if (!column.isPrimaryKey() && !column.isTimestamp()) {
-                modelCode.append("        '").append(column.getName()).append("',\n");
-            }
+
+    /**
+     * Names of the tables generated in the same run, whose resources the included relations are
+     * rendered with. Defaults to the tables of the schema.
+     */
+    public void setGeneratedTables(Set<String> generatedTables) {
+        this.generatedTables = generatedTables;
+    }
+
+    public void generateAll() throws IOException {
+        for (Artifact artifact : Artifact.values()) {
+            generate(artifact);
         }
-        modelCode.append("    ];\n\n");
-        
-        // Casts
-        boolean hasCasts = false;
-        StringBuilder castsCode = new StringBuilder();
-        castsCode.append("    protected $casts = [\n");
-        
-        for (Column column : table.getColumns()) {
-            if (column.getPhpType().equals("boolean")) {
-                castsCode.append("        '").append(column.getName()).append("' => 'boolean',\n");
-                hasCasts = true;
-            } else if (column.getPhpType().equals("integer")) {
-                castsCode.append("        '").append(column.getName()).append("' => 'integer',\n");
-                hasCasts = true;
-            } else if (column.getPhpType().equals("float")) {
-                castsCode.append("        '").append(column.getName()).append("' => 'float',\n");
-                hasCasts = true;
-            } else if (column.getPhpType().equals("json")) {
-                castsCode.append("        '").append(column.getName()).append("' => 'array',\n");
-                hasCasts = true;
-            } else if (column.getPhpType().equals("date") || column.getPhpType().equals("datetime")) {
-                castsCode.append("        '").append(column.getName()).append("' => 'datetime',\n");
-                hasCasts = true;
-            }
+    }
+
+    /**
+     * Generates a single artifact for the table and returns the path of the written file relative
+     * to the sink, or null if the manifest showed the file was already up to date or the artifact
+     * is turned off by the options.
+     */
+    public String generate(Artifact artifact) throws IOException {
+        switch (artifact) {
+            case MODEL:
+                return generateModel();
+            case CONTROLLER:
+                return generateController();
+            case SERVICE:
+                return generateService();
+            case RESOURCE:
+                return generateResource();
+            case COLLECTION:
+                return generateCollection();
+            case ROUTES:
+                return generateRoutes();
+            case MIGRATION:
+                return generateMigration();
+            default:
+                throw new IllegalArgumentException("Unknown artifact: " + artifact);
         }
-        
-        castsCode.append("    ];\n");
-        
-        if (hasCasts) {
-            modelCode.append(castsCode);
+    }
+    
+    private String generateModel() throws IOException {
+        return writeToFile(table.getModelName() + ".php", render(Artifact.MODEL));
+    }
+    
+    private String generateController() throws IOException {
+        return writeToFile(table.getControllerName() + ".php", render(Artifact.CONTROLLER));
+    }
+    
+    private String generateService() throws IOException {
+        return writeToFile(table.getServiceName() + ".php", render(Artifact.SERVICE));
+    }
+    
+    private String generateResource() throws IOException {
+        return writeToFile(table.getResourceName() + ".php", render(Artifact.RESOURCE));
+    }
+    
+    private String generateCollection() throws IOException {
+        return writeToFile(table.getCollectionName() + ".php", render(Artifact.COLLECTION));
+    }
+    
+    private String generateRoutes() throws IOException {
+        return writeToFile(table.getName() + "_routes.php", render(Artifact.ROUTES));
+    }
+
+    private String generateMigration() throws IOException {
+        if (!options.isMigrations()) {
+            return null;
         }
-        
-        // fk relationships
-        addRelationships(modelCode);
+        return writeToFile(MigrationPlan.getFileName(table), render(Artifact.MIGRATION));
+    }
 
-        modelCode.append("}\n");
-        
-        writeToFile(outputPath + File.separator + modelName + ".php", modelCode.toString());
+    private String render(Artifact artifact) throws IOException {
+        Template template = templates.getTemplate(artifact.getTemplateName());
+        return template.render(getContext());
     }
-    
-    private void generateController() throws IOException {
-        String controllerName = table.getControllerName();
+
+    /**
+     * Builds the values the templates are rendered against. The context only depends on the
+     * table and the options, so it is built once and shared by all artifacts (possibly rendered concurrently).
+     */
+    private synchronized Map<String, Object> getContext() {
+        if (context != null) {
+            return context;
+        }
+
         String modelName = table.getModelName();
         String serviceName = table.getServiceName();
-        String variableName = lcfirst(modelName);
-        
-        StringBuilder controllerCode = new StringBuilder();
-        
-        controllerCode.append("<?php\n\n");
-        controllerCode.append("namespace App\\Http\\Controllers;\n\n");
-        controllerCode.append("use App\\Models\\").append(modelName).append(";\n");
-        controllerCode.append("use App\\Services\\").append(serviceName).append(";\n");
-        controllerCode.append("use Illuminate\\Http\\Request;\n");
-        controllerCode.append("use Illuminate\\Http\\JsonResponse;\n");
-        controllerCode.append("use Illuminate\\Validation\\ValidationException;\n\n");
-        
-        controllerCode.append("class ").append(controllerName).append(" extends Controller\n");
-        controllerCode.append("{\n");
-        controllerCode.append("    protected $").append(lcfirst(serviceName)).append(";\n\n");
-        
-        // Constructor
-        controllerCode.append("    public function __construct(").append(serviceName).append(" $").append(lcfirst(serviceName)).append(")\n");
-        controllerCode.append("    {\n");
-        controllerCode.append("        $this->").append(lcfirst(serviceName)).append(" = $").append(lcfirst(serviceName)).append(";\n");
-        controllerCode.append("    }\n\n");
-        
-        // Index method
-        controllerCode.append("    /**\n");
-        controllerCode.append("     * Display a listing of ").append(variableName).append("s.\n");
-        controllerCode.append("     *\n");
-        controllerCode.append("     * @return JsonResponse\n");
-        controllerCode.append("     */\n");
-        controllerCode.append("    public function index(): JsonResponse\n");
-        controllerCode.append("    {\n");
-        controllerCode.append("        $").append(table.getName()).append(" = $this->").append(lcfirst(serviceName)).append("->getAll();\n");
-        controllerCode.append("        return response()->json([\n");
-        controllerCode.append("            'status' => 'success',\n");
-        controllerCode.append("            'message' => 'All ").append(variableName).append("s retrieved successfully',\n");
-        controllerCode.append("            'data' => $").append(table.getName()).append("\n");
-        controllerCode.append("        ]);\n");
-        controllerCode.append("    }\n\n");
-        
-        // Store method
-        controllerCode.append("    /**\n");
-        controllerCode.append("     * Store a newly created ").append(variableName).append(".\n");
-        controllerCode.append("     *\n");
-        controllerCode.append("     * @param Request $request\n");
-        controllerCode.append("     * @return JsonResponse\n");
-        controllerCode.append("     */\n");
-        controllerCode.append("    public function store(Request $request): JsonResponse\n");
-        controllerCode.append("    {\n");
-        controllerCode.append("        try {\n");
-        controllerCode.append("            $validated = $request->validate([\n");
-        
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("tableName", table.getName());
+        values.put("routeName", table.getName());
+        values.put("modelName", modelName);
+        values.put("controllerName", table.getControllerName());
+        values.put("serviceName", serviceName);
+        values.put("resourceName", table.getResourceName());
+        values.put("collectionName", table.getCollectionName());
+        values.put("variableName", Inflector.camelCase(modelName));
+        values.put("serviceVariable", Inflector.camelCase(serviceName));
+        values.put("primaryKey", table.getPrimaryKeyColumn().getName());
+        values.put("createdAt", findColumn("created_at") != null);
+        values.put("updatedAt", findColumn("updated_at") != null);
+        values.put("hasDates", table.getColumns().stream()
+                .anyMatch(column -> column.getPhpType() == PhpType.DATE || column.getPhpType() == PhpType.DATETIME));
+        values.put("timestamps", findColumn("created_at") != null || findColumn("updated_at") != null);
+
+        List<Map<String, Object>> columns = new ArrayList<>();
+        List<Map<String, Object>> fillable = new ArrayList<>();
+        List<Map<String, Object>> casts = new ArrayList<>();
+        List<Map<String, Object>> storeRules = new ArrayList<>();
+        List<Map<String, Object>> updateRules = new ArrayList<>();
+        List<Map<String, Object>> filterableColumns = new ArrayList<>();
+        List<Map<String, Object>> sortableColumns = new ArrayList<>();
+
         for (Column column : table.getColumns()) {
+            columns.add(entry("name", column.getName(), "sqlType", getSqlType(column), "resourceValue", getResourceValue(column)));
+
+            // Only expose filters and sorts an index can serve, not sequential scans
+            if (table.canFilterOn(column.getName())) {
+                filterableColumns.add(entry("name", column.getName()));
+            }
+            if (table.canSortOn(column.getName())) {
+                sortableColumns.add(entry("name", column.getName()));
+            }
+
+            String cast = getCast(column);
+            if (cast != null) {
+                casts.add(entry("name", column.getName(), "cast", cast));
+            }
+
             if (!column.isPrimaryKey() && !column.isTimestamp()) {
-                String rules = column.isNullable() ? "nullable" : "required";
-                
-                if (column.getPhpType().equals("integer")) {
-                    rules += "|integer";
-                } else if (column.getPhpType().equals("float")) {
-                    rules += "|numeric";
-                } else if (column.getPhpType().equals("boolean")) {
-                    rules += "|boolean";
-                } else if (column.getPhpType().equals("date")) {
-                    rules += "|date";
-                } else if (column.getPhpType().equals("datetime")) {
-                    rules += "|date";
-                } else if (column.getPhpType().equals("json")) {
-                    rules += "|array";
-                } else {
-                    rules += "|string";
-                }
-                
-                controllerCode.append("                '").append(column.getName()).append("' => '").append(rules).append("',\n");
+                fillable.add(entry("name", column.getName()));
+
+                // Store requires non-nullable columns, update only validates what is sent
+                String typeRule = getTypeRule(column);
+                storeRules.add(entry("name", column.getName(), "rules", (column.isNullable() ? "nullable" : "required") + "|" + typeRule));
+                updateRules.add(entry("name", column.getName(), "rules", "nullable|" + typeRule));
             }
         }
-        
-        controllerCode.append("            ]);\n\n");
-        controllerCode.append("            $").append(variableName).append(" = $this->").append(lcfirst(serviceName)).append("->create($validated);\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'success',\n");
-        controllerCode.append("                'message' => '").append(modelName).append(" created successfully',\n");
-        controllerCode.append("                'data' => $").append(variableName).append("\n");
-        controllerCode.append("            ], 201);\n");
-        controllerCode.append("        } catch (ValidationException $e) {\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'error',\n");
-        controllerCode.append("                'message' => 'Validation failed',\n");
-        controllerCode.append("                'errors' => $e->errors()\n");
-        controllerCode.append("            ], 422);\n");
-        controllerCode.append("        } catch (\\Exception $e) {\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'error',\n");
-        controllerCode.append("                'message' => 'Failed to create ").append(variableName).append("',\n");
-        controllerCode.append("                'error' => $e->getMessage()\n");
-        controllerCode.append("            ], 500);\n");
-        controllerCode.append("        }\n");
-        controllerCode.append("    }\n\n");
-        
-        // Show method
-        controllerCode.append("    /**\n");
-        controllerCode.append("     * Display the specified ").append(variableName).append(".\n");
-        controllerCode.append("     *\n");
-        controllerCode.append("     * @param int $id\n");
-        controllerCode.append("     * @param Request $request\n");
-        controllerCode.append("     * @return JsonResponse\n");
-        controllerCode.append("     */\n");
-        controllerCode.append("    public function show(int $id, Request $request): JsonResponse\n");
-        controllerCode.append("    {\n");
-        controllerCode.append("        try {\n");
-        controllerCode.append("            $withRelations = $request->query('with_relations', false);\n");
-        controllerCode.append("            $").append(variableName).append(" = $this->").append(lcfirst(serviceName)).append("->findById($id, $withRelations);\n");
-        controllerCode.append("            \n");
-        controllerCode.append("            if (!$").append(variableName).append(") {\n");
-        controllerCode.append("                return response()->json([\n");
-        controllerCode.append("                    'status' => 'error',\n");
-        controllerCode.append("                    'message' => '").append(modelName).append(" not found'\n");
-        controllerCode.append("                ], 404);\n");
-        controllerCode.append("            }\n");
-        controllerCode.append("            \n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'success',\n");
-        controllerCode.append("                'message' => '").append(modelName).append(" retrieved successfully',\n");
-        controllerCode.append("                'data' => $").append(variableName).append("\n");
-        controllerCode.append("            ]);\n");
-        controllerCode.append("        } catch (\\Exception $e) {\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'error',\n");
-        controllerCode.append("                'message' => 'Failed to retrieve ").append(variableName).append("',\n");
-        controllerCode.append("                'error' => $e->getMessage()\n");
-        controllerCode.append("            ], 500);\n");
-        controllerCode.append("        }\n");
-        controllerCode.append("    }\n\n");
-        
-        // Update method
-        controllerCode.append("    /**\n");
-        controllerCode.append("     * Update the specified ").append(variableName).append(".\n");
-        controllerCode.append("     *\n");
-        controllerCode.append("     * @param Request $request\n");
-        controllerCode.append("     * @param int $id\n");
-        controllerCode.append("     * @return JsonResponse\n");
-        controllerCode.append("     */\n");
-        controllerCode.append("    public function update(Request $request, int $id): JsonResponse\n");
-        controllerCode.append("    {\n");
-        controllerCode.append("        try {\n");
-        controllerCode.append("            $").append(variableName).append(" = $this->").append(lcfirst(serviceName)).append("->findById($id);\n");
-        controllerCode.append("            \n");
-        controllerCode.append("            if (!$").append(variableName).append(") {\n");
-        controllerCode.append("                return response()->json([\n");
-        controllerCode.append("                    'status' => 'error',\n");
-        controllerCode.append("                    'message' => '").append(modelName).append(" not found'\n");
-        controllerCode.append("                ], 404);\n");
-        controllerCode.append("            }\n\n");
-        
-        controllerCode.append("            $validated = $request->validate([\n");
-        
-        for (Column column : table.getColumns()) {
-            if (!column.isPrimaryKey() && !column.isTimestamp()) {
-                String rules = "nullable";
-                
-                if (column.getPhpType().equals("integer")) {
-                    rules += "|integer";
-                } else if (column.getPhpType().equals("float")) {
-                    rules += "|numeric";
-                } else if (column.getPhpType().equals("boolean")) {
-                    rules += "|boolean";
-                } else if (column.getPhpType().equals("date")) {
-                    rules += "|date";
-                } else if (column.getPhpType().equals("datetime")) {
-                    rules += "|date";
-                } else if (column.getPhpType().equals("json")) {
-                    rules += "|array";
-                } else {
-                    rules += "|string";
-                }
-                
-                controllerCode.append("                '").append(column.getName()).append("' => '").append(rules).append("',\n");
+
+        values.put("columns", columns);
+        values.put("filterableColumns", filterableColumns);
+        values.put("sortableColumns", sortableColumns);
+        values.put("fillable", fillable);
+        values.put("casts", casts);
+        values.put("storeRules", storeRules);
+        values.put("updateRules", updateRules);
+        List<Map<String, Object>> relationships = getRelationships();
+        List<Map<String, Object>> inverseRelationships = getInverseRelationships(relationships);
+        List<Map<String, Object>> countRelationships = new ArrayList<>();
+        for (Map<String, Object> relationship : inverseRelationships) {
+            if (relationship.get("hasMany") == Boolean.TRUE) {
+                countRelationships.add(relationship);
             }
         }
-        
-        controllerCode.append("            ]);\n\n");
-        controllerCode.append("            $updated").append(modelName).append(" = $this->").append(lcfirst(serviceName)).append("->update($id, $validated);\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'success',\n");
-        controllerCode.append("                'message' => '").append(modelName).append(" updated successfully',\n");
-        controllerCode.append("                'data' => $updated").append(modelName).append("\n");
-        controllerCode.append("            ]);\n");
-        controllerCode.append("        } catch (ValidationException $e) {\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'error',\n");
-        controllerCode.append("                'message' => 'Validation failed',\n");
-        controllerCode.append("                'errors' => $e->errors()\n");
-        controllerCode.append("            ], 422);\n");
-        controllerCode.append("        } catch (\\Exception $e) {\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'error',\n");
-        controllerCode.append("                'message' => 'Failed to update ").append(variableName).append("',\n");
-        controllerCode.append("                'error' => $e->getMessage()\n");
-        controllerCode.append("            ], 500);\n");
-        controllerCode.append("        }\n");
-        controllerCode.append("    }\n\n");
-        
-        // Delete method
-        controllerCode.append("    /**\n");
-        controllerCode.append("     * Remove the specified ").append(variableName).append(".\n");
-        controllerCode.append("     *\n");
-        controllerCode.append("     * @param int $id\n");
-        controllerCode.append("     * @return JsonResponse\n");
-        controllerCode.append("     */\n");
-        controllerCode.append("    public function destroy(int $id): JsonResponse\n");
-        controllerCode.append("    {\n");
-        controllerCode.append("        try {\n");
-        controllerCode.append("            $").append(variableName).append(" = $this->").append(lcfirst(serviceName)).append("->findById($id);\n");
-        controllerCode.append("            \n");
-        controllerCode.append("            if (!$").append(variableName).append(") {\n");
-        controllerCode.append("                return response()->json([\n");
-        controllerCode.append("                    'status' => 'error',\n");
-        controllerCode.append("                    'message' => '").append(modelName).append(" not found'\n");
-        controllerCode.append("                ], 404);\n");
-        controllerCode.append("            }\n\n");
-        
-        controllerCode.append("            $this->").append(lcfirst(serviceName)).append("->delete($id);\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'success',\n");
-        controllerCode.append("                'message' => '").append(modelName).append(" deleted successfully'\n");
-        controllerCode.append("            ], 200);\n");
-        controllerCode.append("        } catch (\\Exception $e) {\n");
-        controllerCode.append("            return response()->json([\n");
-        controllerCode.append("                'status' => 'error',\n");
-        controllerCode.append("                'message' => 'Failed to delete ").append(variableName).append("',\n");
-        controllerCode.append("                'error' => $e->getMessage()\n");
-        controllerCode.append("            ], 500);\n");
-        controllerCode.append("        }\n");
-        controllerCode.append("    }\n");
-        controllerCode.append("}\n");
-        
-        writeToFile(outputPath + File.separator + controllerName + ".php", controllerCode.toString());
+        values.put("relationships", relationships);
+        values.put("inverseRelationships", inverseRelationships);
+        values.put("countRelationships", countRelationships);
+        putPagination(values);
+        values.put("export", options.isExport());
+        values.put("exportChunkSize", options.getExportChunkSize());
+        values.put("cache", options.isCache());
+        values.put("cacheTtl", options.getCacheTtl(table));
+        values.put("bulk", options.isBulk());
+        values.put("conditional", options.isConditionalRequests() && findColumn("updated_at") != null);
+        if (options.isBulk()) {
+            values.put("bulkChunkSize", getBulkChunkSize());
+        }
+        if (options.isMigrations()) {
+            MigrationPlan migration = new MigrationPlan(table, schema);
+            values.put("migrationColumns", migration.getColumns());
+            values.put("migrationRawColumns", migration.getRawColumns());
+            values.put("migrationIndexes", migration.getIndexes());
+        }
+
+        context = values;
+        return context;
     }
-    
-    private void generateService() throws IOException {
-        String serviceName = table.getServiceName();
-        String modelName = table.getModelName();
-        String variableName = lcfirst(modelName);
-        
-        StringBuilder serviceCode = new StringBuilder();
-        
-        serviceCode.append("<?php\n\n");
-        serviceCode.append("namespace App\\Services;\n\n");
-        serviceCode.append("use App\\Models\\").append(modelName).append(";\n");
-        serviceCode.append("use Illuminate\\Database\\Eloquent\\Collection;\n\n");
-        
-        serviceCode.append("class ").append(serviceName).append("\n");
-        serviceCode.append("{\n");
-        
-        // Get all method
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Get all ").append(variableName).append("s.\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @return Collection\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    public function getAll(): Collection\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        return ").append(modelName).append("::with($this->getRelationships())->get();\n");
-        serviceCode.append("    }\n\n");
-        
-        // Find by ID method
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Find ").append(variableName).append(" by ID.\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @param int $id\n");
-        serviceCode.append("     * @param bool $withRelations\n");
-        serviceCode.append("     * @return ").append(modelName).append("|null\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    public function findById(int $id, bool $withRelations = false): ?").append(modelName).append("\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        return $this->getQuery($withRelations)->find($id);\n");
-        serviceCode.append("    }\n\n");
-        
-        // Create method
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Create a new ").append(variableName).append(".\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @param array $data\n");
-        serviceCode.append("     * @return ").append(modelName).append("\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    public function create(array $data): ").append(modelName).append("\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        return ").append(modelName).append("::create($data);\n");
-        serviceCode.append("    }\n\n");
-        
-        // Update method
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Update the specified ").append(variableName).append(".\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @param int $id\n");
-        serviceCode.append("     * @param array $data\n");
-        serviceCode.append("     * @return ").append(modelName).append("|null\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    public function update(int $id, array $data): ?").append(modelName).append("\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        $").append(variableName).append(" = $this->findById($id);\n");
-        serviceCode.append("        \n");
-        serviceCode.append("        if (!$").append(variableName).append(") {\n");
-        serviceCode.append("            return null;\n");
-        serviceCode.append("        }\n\n");
-        serviceCode.append("        $").append(variableName).append("->update($data);\n");
-        serviceCode.append("        return $").append(variableName).append("->fresh();\n");
-        serviceCode.append("    }\n\n");
-        
-        // Delete method
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Delete the specified ").append(variableName).append(".\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @param int $id\n");
-        serviceCode.append("     * @return bool\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    public function delete(int $id): bool\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        $").append(variableName).append(" = $this->findById($id);\n");
-        serviceCode.append("        \n");
-        serviceCode.append("        if (!$").append(variableName).append(") {\n");
-        serviceCode.append("            return false;\n");
-        serviceCode.append("        }\n\n");
-        serviceCode.append("        return $").append(variableName).append("->delete();\n");
-        serviceCode.append("    }\n");
-
-        // Helper method to get relationships
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Get relationship methods for eager loading.\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @return array\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    private function getRelationships(): array\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        return [\n");
-
-        // Add relationship methods based on foreign keys
-        boolean hasRelationships = false;
-        for (Column column : table.getColumns()) {
-            if (column.isForeignKey() && column.getReferencesTable() != null) {
-                String relatedTable = column.getReferencesTable();
-                String methodName = Utils.toCamelCase(Utils.toSingular(relatedTable));
-                serviceCode.append("            '").append(methodName).append("',\n");
-                hasRelationships = true;
+
+    private void putPagination(Map<String, Object> values) {
+        PaginationMode pagination = options.getPagination(table);
+        values.put("paginated", pagination != PaginationMode.NONE);
+        values.put("offsetPagination", pagination == PaginationMode.OFFSET);
+        values.put("cursorPagination", pagination == PaginationMode.CURSOR);
+        values.put("defaultPageSize", options.getDefaultPageSize());
+        values.put("maxPageSize", options.getMaxPageSize());
+
+        // Pages need a stable order; keyset pagination additionally needs it to be unique
+        String primaryKey = table.getPrimaryKeyColumn().getName();
+        List<Map<String, Object>> orderColumns = new ArrayList<>();
+        if (pagination == PaginationMode.CURSOR) {
+            String cursorColumn = options.getCursorColumn(table);
+            if (findColumn(cursorColumn) == null) {
+                throw new IllegalArgumentException("Unknown cursor column '" + cursorColumn + "' in table " + table.getName());
+            }
+            if (!table.canSortOn(cursorColumn)) {
+                throw new IllegalArgumentException("Cursor column '" + cursorColumn + "' of table " + table.getName()
+                        + " is not the leading column of a btree index, every page would sort the whole table");
+            }
+            orderColumns.add(entry("name", cursorColumn));
+            if (!cursorColumn.equals(primaryKey)) {
+                orderColumns.add(entry("name", primaryKey));
             }
+        } else {
+            orderColumns.add(entry("name", primaryKey));
         }
+        values.put("orderColumns", orderColumns);
+    }
 
-        if (!hasRelationships) {
-            serviceCode.append("            // No relationships detected\n");
-        }
+    /**
+     * Rows per bulk statement: the configured chunk size, lowered so that a chunk of full rows
+     * stays under the 65535 bind parameters a PostgreSQL statement accepts.
+     */
+    private int getBulkChunkSize() {
+        return Math.min(options.getBulkChunkSize(), MAX_BIND_PARAMETERS / Math.max(1, table.getColumns().size()));
+    }
 
-        serviceCode.append("        ];\n");
-        serviceCode.append("    }\n");
-
-        // new utility method for query with relationships
-        serviceCode.append("\n");
-        serviceCode.append("    /**\n");
-        serviceCode.append("     * Get query with optional relationship loading.\n");
-        serviceCode.append("     *\n");
-        serviceCode.append("     * @param bool $withRelations\n");
-        serviceCode.append("     * @return \\Illuminate\\Database\\Eloquent\\Builder\n");
-        serviceCode.append("     */\n");
-        serviceCode.append("    private function getQuery(bool $withRelations = false)\n");
-        serviceCode.append("    {\n");
-        serviceCode.append("        $query = ").append(modelName).append("::query();\n");
-        serviceCode.append("        if ($withRelations) {\n");
-        serviceCode.append("            $query->with($this->getRelationships());\n");
-        serviceCode.append("        }\n");
-        serviceCode.append("        return $query;\n");
-        serviceCode.append("    }\n");
-
-        serviceCode.append("}\n");
-        
-        writeToFile(outputPath + File.separator + serviceName + ".php", serviceCode.toString());
+    /**
+     * Returns true if the table's resource is generated along with this table's, so that
+     * an included relation can be rendered with it.
+     */
+    private boolean isGenerated(String tableName) {
+        if (generatedTables != null) {
+            return generatedTables.contains(tableName);
+        }
+        return schema != null && schema.getTable(tableName) != null;
     }
-    
-    private void generateRoutes() throws IOException {
-        String modelName = table.getModelName();
-        String controllerName = table.getControllerName();
-        String routeName = table.getName();
-        
-        StringBuilder routesCode = new StringBuilder();
-        
-        routesCode.append("<?php\n\n");
-        routesCode.append("use Illuminate\\Support\\Facades\\Route;\n");
-        routesCode.append("use App\\Http\\Controllers\\").append(controllerName).append(";\n\n");
-        
-        routesCode.append("// Routes for ").append(modelName).append(" CRUD operations\n");
-        routesCode.append("Route::apiResource('").append(routeName).append("', ").append(controllerName).append("::class);\n\n");
-        
-        routesCode.append("/* The above apiResource route is equivalent to:\n");
-        routesCode.append("Route::get('/").append(routeName).append("', [").append(controllerName).append("::class, 'index']);\n");
-        routesCode.append("Route::post('/").append(routeName).append("', [").append(controllerName).append("::class, 'store']);\n");
-        routesCode.append("Route::get('/").append(routeName).append("/{id}', [").append(controllerName).append("::class, 'show']);\n");
-        routesCode.append("Route::put('/").append(routeName).append("/{id}', [").append(controllerName).append("::class, 'update']);\n");
-        routesCode.append("Route::delete('/").append(routeName).append("/{id}', [").append(controllerName).append("::class, 'destroy']);\n");
-        routesCode.append("*/\n");
-        
-        writeToFile(outputPath + File.separator + routeName + "_routes.php", routesCode.toString());
+
+    private Column findColumn(String name) {
+        for (Column column : table.getColumns()) {
+            if (column.getName().equals(name)) {
+                return column;
+            }
+        }
+        return null;
     }
-    
-    private void addRelationships(StringBuilder modelCode) {
+
+    private List<Map<String, Object>> getRelationships() {
         // Track tables that we've already added relationships for
+        List<Map<String, Object>> relationships = new ArrayList<>();
         List<String> addedRelationships = new ArrayList<>();
         
         for (Column column : table.getColumns()) {
             if (column.isForeignKey() && column.getReferencesTable() != null) {
                 String relatedTable = column.getReferencesTable();
-                String relatedModel = Utils.toPascalCase(Utils.toSingular(relatedTable));
                 
                 // belongsTo relationship for the foreign key
-                String methodName = Utils.toCamelCase(Utils.toSingular(relatedTable));
-                
+                String methodName = Inflector.camelCase(Inflector.singular(relatedTable));
+
+                // A second foreign key to the same table is named after its column: editor() for editor_id
+                if (addedRelationships.contains(methodName)) {
+                    String columnName = column.getName();
+                    String suffix = columnName.endsWith("_id") ? columnName.substring(0, columnName.length() - 3) : columnName;
+                    methodName = addedRelationships.contains(Inflector.camelCase(suffix))
+                            ? methodName + "By" + Inflector.pascalCase(suffix)
+                            : Inflector.camelCase(suffix);
+                }
+
                 // Avoid duplicate relationships
                 if (!addedRelationships.contains(methodName)) {
-                    modelCode.append("\n    /**\n");
-                    modelCode.append("     * Get the ").append(relatedTable).append(" that this ").append(table.getName()).append(" belongs to.\n");
-                    modelCode.append("     */\n");
-                    modelCode.append("    public function ").append(methodName).append("()\n");
-                    modelCode.append("    {\n");
-                    modelCode.append("        return $this->belongsTo(").append(relatedModel).append("::class, '")
-                            .append(column.getName()).append("', '").append(column.getReferencesColumn()).append("');\n");
-                    modelCode.append("    }\n");
+                    Map<String, Object> relationship = entry("methodName", methodName, "relatedTable", relatedTable);
+                    relationship.put("relatedModel", Inflector.pascalCase(Inflector.singular(relatedTable)));
+                    relationship.put("relatedGenerated", isGenerated(relatedTable));
+                    relationship.put("foreignKey", column.getName());
+                    relationship.put("ownerKey", column.getReferencesColumn());
+                    relationship.put("selectColumns", getSelectColumns(relatedTable, column.getReferencesColumn()));
+                    relationships.add(relationship);
                     
                     addedRelationships.add(methodName);
                 }
             }
         }
+        return relationships;
     }
 
-    private void writeToFile(String filePath, String content) throws IOException {
-        File file = new File(filePath);
-        
-        // Create parent directories if they don't exist
-        File parentDir = file.getParentFile();
-        if (parentDir != null) {
-            parentDir.mkdirs();
+    /**
+     * hasMany, or hasOne when the foreign key is unique, for every foreign key of the schema
+     * referencing the table. A table referencing it through several foreign keys, or a name taken
+     * by another relation, gets the foreign key as suffix: commentsByAuthor, commentsByEditor.
+     */
+    private List<Map<String, Object>> getInverseRelationships(List<Map<String, Object>> relationships) {
+        List<Map<String, Object>> inverses = new ArrayList<>();
+        if (schema == null) {
+            return inverses;
         }
-        
-        // Write to file
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write(content);
+
+        List<String> methodNames = new ArrayList<>();
+        for (Map<String, Object> relationship : relationships) {
+            methodNames.add((String) relationship.get("methodName"));
+        }
+        List<ForeignKey> foreignKeys = schema.getReferencingKeys(table);
+        Map<Table, Integer> keysPerTable = new HashMap<>();
+        for (ForeignKey foreignKey : foreignKeys) {
+            keysPerTable.merge(foreignKey.getTable(), 1, Integer::sum);
+        }
+
+        for (ForeignKey foreignKey : foreignKeys) {
+            String relatedTable = foreignKey.getTable().getName();
+            String columnName = foreignKey.getColumn().getName();
+            boolean hasOne = foreignKey.isUnique();
+
+            String methodName = Inflector.camelCase(hasOne ? Inflector.singular(relatedTable) : relatedTable);
+            if (keysPerTable.get(foreignKey.getTable()) > 1 || methodNames.contains(methodName)) {
+                String suffix = columnName.endsWith("_id") ? columnName.substring(0, columnName.length() - 3) : columnName;
+                methodName += "By" + Inflector.pascalCase(suffix);
+            }
+            if (methodNames.contains(methodName)) {
+                continue;
+            }
+            methodNames.add(methodName);
+
+            Map<String, Object> inverse = entry("methodName", methodName, "relatedTable", relatedTable);
+            inverse.put("relatedModel", Inflector.pascalCase(Inflector.singular(relatedTable)));
+            inverse.put("relatedGenerated", isGenerated(relatedTable));
+            inverse.put("foreignKey", columnName);
+            inverse.put("localKey", foreignKey.getColumn().getReferencesColumn());
+            inverse.put("hasOne", hasOne);
+            inverse.put("hasMany", !hasOne);
+            inverse.put("selectColumns", getSelectColumns(relatedTable, columnName));
+            inverse.put("countAttribute", Inflector.snakeCase(methodName) + "_count");
+            inverses.add(inverse);
         }
+        return inverses;
     }
-    
-    private String lcfirst(String input) {
-        if (input == null || input.isEmpty()) {
-            return input;
+
+    /**
+     * Columns loaded on an included related model, as the "a,b,c" list of Eloquent's "relation:a,b,c"
+     * syntax: the owner key plus every column that is not of a large type. Empty when all columns
+     * are needed anyway, or when the related table is not part of the schema.
+     */
+    private String getSelectColumns(String relatedTableName, String ownerKey) {
+        Table relatedTable = schema != null ? schema.getTable(relatedTableName) : null;
+        if (relatedTable == null) {
+            return "";
+        }
+
+        List<String> selected = new ArrayList<>();
+        for (Column column : relatedTable.getColumns()) {
+            if (column.getName().equals(ownerKey) || !LARGE_TYPES.contains(column.getDbType())) {
+                selected.add(column.getName());
+            }
         }
-        return Character.toLowerCase(input.charAt(0)) + input.substring(1);
+        if (!selected.contains(ownerKey)) {
+            selected.add(0, ownerKey);
+        }
+        return selected.size() < relatedTable.getColumns().size() ? String.join(",", selected) : "";
+    }
+
+    private static String getCast(Column column) {
+        switch (column.getPhpType()) {
+            case BOOLEAN:
+                return "boolean";
+            case INTEGER:
+                return "integer";
+            case FLOAT:
+                return "float";
+            case JSON:
+                return "array";
+            case DATE:
+            case DATETIME:
+                return "datetime";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Type a bound value is cast to in SQL, e.g. in the VALUES list of a bulk update.
+     * Serial pseudo-types are not castable, and the parser shortens "double precision".
+     */
+    private static String getSqlType(Column column) {
+        String dbType = column.getDbType();
+        switch (dbType) {
+            case "serial":
+            case "serial4":
+                return "integer";
+            case "bigserial":
+            case "serial8":
+                return "bigint";
+            case "smallserial":
+            case "serial2":
+                return "smallint";
+            case "double":
+                return "double precision";
+            default:
+                return dbType;
+        }
+    }
+
+    /**
+     * PHP expression the resource outputs for the column, converting the raw attribute like the
+     * model cast would, without going through Eloquent's attribute machinery.
+     */
+    private static String getResourceValue(Column column) {
+        String attribute = "$attributes['" + column.getName() + "']";
+        switch (column.getPhpType()) {
+            case INTEGER:
+                return "isset(" + attribute + ") ? (int) " + attribute + " : null";
+            case FLOAT:
+                return "isset(" + attribute + ") ? (float) " + attribute + " : null";
+            case BOOLEAN:
+                return "isset(" + attribute + ") ? (bool) " + attribute + " : null";
+            case JSON:
+                return "isset(" + attribute + ") ? json_decode(" + attribute + ", true) : null";
+            case DATE:
+            case DATETIME:
+                return "isset(" + attribute + ") ? Carbon::parse(" + attribute + ")->toJSON() : null";
+            default:
+                return attribute;
+        }
+    }
+
+    private static String getTypeRule(Column column) {
+        switch (column.getPhpType()) {
+            case INTEGER:
+                return "integer";
+            case FLOAT:
+                return "numeric";
+            case BOOLEAN:
+                return "boolean";
+            case DATE:
+            case DATETIME:
+                return "date";
+            case JSON:
+                return "array";
+            default:
+                return "string";
+        }
+    }
+
+    private static Map<String, Object> entry(String... keysAndValues) {
+        Map<String, Object> entry = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            entry.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return entry;
+    }
+
+    private String writeToFile(String fileName, String content) throws IOException {
+        if (manifest != null && !manifest.recordFile(table, fileName, content)) {
+            return null;
+        }
+
+        sink.write(fileName, content);
+        return fileName;
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package mg.itu.codegen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes generated files under a directory, as UTF-8, with one NIO write per file.
+ * Each directory is created at most once per sink instead of once per file.
+ */
+public class DirectoryOutputSink implements OutputSink {
+
+    private final Path root;
+    private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+
+    public DirectoryOutputSink(Path root) {
+        this.root = root;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void write(String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Path directory = file.getParent();
+        if (directory != null && !createdDirectories.contains(directory)) {
+            Files.createDirectories(directory);
+            createdDirectories.add(directory);
+        }
+
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() {
+        // Every write is complete when it returns
+    }
+}
@@ -0,0 +1,253 @@
+package mg.itu.codegen;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mg.itu.data.Column;
+import mg.itu.data.Index;
+import mg.itu.data.Table;
+
+/**
+ * Records what the last run generated into an output directory, so a rerun only rewrites
+ * what actually changed.
+ *
+ * The manifest keeps a fingerprint of every table's parsed definition and a content hash of every
+ * generated file. A table whose fingerprint is unchanged and whose files are all still present is
+ * skipped entirely; for the others, files are rendered but only written when their content differs.
+ *
+ * Instances are safe to update from the generator worker threads.
+ */
+public class GenerationManifest {
+
+    public static final String FILE_NAME = ".crudgen-manifest";
+
+    // Bump whenever the generated output changes for an identical table definition
+    private static final String GENERATOR_VERSION = "2";
+    private static final String HEADER = "# laravel-restapi-gen manifest v1";
+
+    private final Path directory;
+
+    // State read from the previous run
+    private final Map<String, String> previousFingerprints = new HashMap<>();
+    private final Map<String, List<String>> previousTableFiles = new HashMap<>();
+    private final Map<String, String> previousFileHashes = new HashMap<>();
+
+    // State of the current run
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> tableFiles = new ConcurrentHashMap<>();
+    private final Map<String, String> fileHashes = new ConcurrentHashMap<>();
+    private final Map<String, String> sharedFileHashes = new ConcurrentHashMap<>();
+
+    private GenerationManifest(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the manifest of the given output directory, or starts an empty one if there is none.
+     */
+    public static GenerationManifest load(String outputPath) throws IOException {
+        GenerationManifest manifest = new GenerationManifest(Paths.get(outputPath));
+        Path file = manifest.directory.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            return manifest;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (!HEADER.equals(header)) {
+                // Unknown format: behave as if nothing had been generated yet
+                return manifest;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields[0].equals("table") && fields.length >= 3) {
+                    manifest.previousFingerprints.put(fields[1], fields[2]);
+                    List<String> files = new ArrayList<>();
+                    for (int i = 3; i < fields.length; i++) {
+                        files.add(fields[i]);
+                    }
+                    manifest.previousTableFiles.put(fields[1], files);
+                } else if (fields[0].equals("file") && fields.length == 3) {
+                    manifest.previousFileHashes.put(fields[1], fields[2]);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Returns true if the table was generated by a previous run from the same definition
+     * and all its files are still on disk.
+     */
+    public boolean isUpToDate(Table table, String fingerprint) {
+        if (!fingerprint.equals(previousFingerprints.get(table.getName()))) {
+            return false;
+        }
+        for (String fileName : previousTableFiles.get(table.getName())) {
+            if (!previousFileHashes.containsKey(fileName) || !Files.isRegularFile(directory.resolve(fileName))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carries the previous entries of a skipped table over to the manifest being written.
+     */
+    public void keep(Table table) {
+        String name = table.getName();
+        List<String> files = previousTableFiles.get(name);
+        fingerprints.put(name, previousFingerprints.get(name));
+        tableFiles.put(name, files);
+        for (String fileName : files) {
+            fileHashes.put(fileName, previousFileHashes.get(fileName));
+        }
+    }
+
+    /**
+     * Carries the previous entries of a table of the schema that this run did not select, if it has
+     * any, so that a run filtered to some tables does not make the next full run regenerate the others.
+     */
+    public void keepUnselected(Table table) {
+        if (previousFingerprints.containsKey(table.getName())) {
+            keep(table);
+        }
+    }
+
+    /**
+     * Records the fingerprint of a table whose artifacts were all generated successfully.
+     */
+    public void recordTable(Table table, String fingerprint) {
+        fingerprints.put(table.getName(), fingerprint);
+    }
+
+    /**
+     * Records a rendered file and returns true if it must be written, that is if its content
+     * differs from the previous run or the file is missing.
+     */
+    public boolean recordFile(Table table, String fileName, String content) {
+        String hash = sha256(content);
+        fileHashes.put(fileName, hash);
+        tableFiles.computeIfAbsent(table.getName(), name -> Collections.synchronizedList(new ArrayList<>())).add(fileName);
+
+        return !hash.equals(previousFileHashes.get(fileName)) || !Files.isRegularFile(directory.resolve(fileName));
+    }
+
+    /**
+     * Records a rendered file that belongs to no table, and returns true if it must be written.
+     */
+    public boolean recordSharedFile(String fileName, String content) {
+        String hash = sha256(content);
+        sharedFileHashes.put(fileName, hash);
+
+        return !hash.equals(previousFileHashes.get(fileName)) || !Files.isRegularFile(directory.resolve(fileName));
+    }
+
+    /**
+     * Writes the manifest of the current run, replacing the previous one. It lists the tables generated
+     * or kept by this run, and the tables the run did not select carried over with {@link #keepUnselected(Table)}.
+     * Tables that failed are dropped, so they are regenerated next time, and so are the tables no longer
+     * in the schema.
+     */
+    public void save() throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(FILE_NAME);
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            // Sorted so that the manifest itself does not churn between identical runs
+            Map<String, String> hashes = new TreeMap<>(sharedFileHashes);
+            for (Map.Entry<String, String> table : new TreeMap<>(fingerprints).entrySet()) {
+                List<String> files = new ArrayList<>(tableFiles.getOrDefault(table.getKey(), Collections.emptyList()));
+                Collections.sort(files);
+
+                writer.write("table\t" + table.getKey() + "\t" + table.getValue());
+                for (String fileName : files) {
+                    writer.write("\t" + fileName);
+                    hashes.put(fileName, fileHashes.get(fileName));
+                }
+                writer.newLine();
+            }
+
+            for (Map.Entry<String, String> hash : hashes.entrySet()) {
+                writer.write("file\t" + hash.getKey() + "\t" + hash.getValue());
+                writer.newLine();
+            }
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Computes the fingerprint of everything the generated code of a table depends on.
+     *
+     * @param settingsDigest digest of the run-wide inputs (templates in use), shared by all tables
+     */
+    public static String fingerprint(Table table, String settingsDigest) {
+        StringBuilder definition = new StringBuilder();
+        definition.append(GENERATOR_VERSION).append('\n');
+        definition.append(settingsDigest).append('\n');
+        definition.append(table.getName()).append('\n');
+
+        for (Column column : table.getColumns()) {
+            definition.append(column.getName()).append('|')
+                      .append(column.getDbType()).append('|')
+                      .append(column.getPhpType()).append('|')
+                      .append(column.isPrimaryKey()).append('|')
+                      .append(column.isNullable()).append('|')
+                      .append(column.isForeignKey()).append('|')
+                      .append(column.getReferencesTable()).append('|')
+                      .append(column.getReferencesColumn()).append('|')
+                      .append(column.getTypeModifiers()).append('\n');
+        }
+        for (Index index : table.getIndexes()) {
+            definition.append(index.getName()).append('|')
+                      .append(index.getColumns()).append('|')
+                      .append(index.isUnique()).append('|')
+                      .append(index.isPrimaryKey()).append('|')
+                      .append(index.getMethod()).append('|')
+                      .append(index.isPartial()).append('|')
+                      .append(index.isExpression()).append('\n');
+        }
+        return sha256(definition.toString());
+    }
+
+    /**
+     * Returns the hex SHA-256 of the given text.
+     */
+    public static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package mg.itu.codegen;
+
+import mg.itu.data.Table;
+
+/**
+ * Notified by {@link BatchCodeGenerator} each time all the artifacts of a table are done,
+ * on the thread that called {@code generateAll()}, in table order.
+ */
+public interface GenerationProgressListener {
+
+    /**
+     * @param table     the table whose artifacts were generated, or skipped because they were up to date
+     * @param completed number of tables done so far, including this one
+     * @param total     number of tables of the run
+     */
+    void tableCompleted(Table table, int completed, int total);
+}
@@ -0,0 +1,223 @@
+package mg.itu.codegen;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import mg.itu.data.Table;
+
+/**
+ * Choices that shape the generated code, shared by every table of a run unless overridden per table.
+ *
+ * Anything that changes the generated output must appear in {@link #getDigest()}, so that
+ * incremental runs regenerate the tables after a change of options.
+ */
+public class GeneratorOptions {
+
+    public static final int DEFAULT_PAGE_SIZE = 15;
+    public static final int DEFAULT_MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_EXPORT_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_CACHE_TTL = 300;
+    public static final int DEFAULT_BULK_CHUNK_SIZE = 500;
+
+    private PaginationMode pagination = PaginationMode.OFFSET;
+    private int defaultPageSize = DEFAULT_PAGE_SIZE;
+    private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+    private final Map<String, PaginationMode> tablePagination = new TreeMap<>();
+    private final Map<String, String> cursorColumns = new TreeMap<>();
+    private boolean export;
+    private int exportChunkSize = DEFAULT_EXPORT_CHUNK_SIZE;
+    private boolean cache;
+    private int cacheTtl = DEFAULT_CACHE_TTL;
+    private final Map<String, Integer> tableCacheTtl = new TreeMap<>();
+    private boolean bulk;
+    private boolean conditionalRequests;
+    private boolean migrations;
+    private int bulkChunkSize = DEFAULT_BULK_CHUNK_SIZE;
+
+    public PaginationMode getPagination() {
+        return pagination;
+    }
+
+    /**
+     * Pagination of the tables that have no mode of their own.
+     */
+    public void setPagination(PaginationMode pagination) {
+        this.pagination = pagination;
+    }
+
+    /**
+     * Pagination of the given table, overriding the default mode.
+     */
+    public void setPagination(String tableName, PaginationMode pagination) {
+        tablePagination.put(tableName.toLowerCase(), pagination);
+    }
+
+    public PaginationMode getPagination(Table table) {
+        return tablePagination.getOrDefault(table.getName().toLowerCase(), pagination);
+    }
+
+    /**
+     * Orders the cursor pagination of the given table on this column instead of its primary key.
+     * The column should be indexed; the primary key is appended as a tie-breaker.
+     */
+    public void setCursorColumn(String tableName, String columnName) {
+        cursorColumns.put(tableName.toLowerCase(), columnName);
+    }
+
+    /**
+     * Column the cursor pagination of the table is ordered on: the configured one, else the primary key.
+     */
+    public String getCursorColumn(Table table) {
+        String columnName = cursorColumns.get(table.getName().toLowerCase());
+        return columnName != null ? columnName : table.getPrimaryKeyColumn().getName();
+    }
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    /**
+     * Page size used when the client sends no per_page, and the largest one it may ask for.
+     */
+    public void setPageSizes(int defaultPageSize, int maxPageSize) {
+        if (defaultPageSize < 1 || maxPageSize < defaultPageSize) {
+            throw new IllegalArgumentException("Page sizes must satisfy 1 <= default (" + defaultPageSize
+                    + ") <= max (" + maxPageSize + ")");
+        }
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public boolean isExport() {
+        return export;
+    }
+
+    /**
+     * Adds a GET /{table}/export endpoint streaming every row as NDJSON or as a JSON array.
+     */
+    public void setExport(boolean export) {
+        this.export = export;
+    }
+
+    public int getExportChunkSize() {
+        return exportChunkSize;
+    }
+
+    /**
+     * Rows fetched per keyset query by the export endpoint; only one chunk is held in PHP memory.
+     */
+    public void setExportChunkSize(int exportChunkSize) {
+        if (exportChunkSize < 1) {
+            throw new IllegalArgumentException("Export chunk size must be at least 1");
+        }
+        this.exportChunkSize = exportChunkSize;
+    }
+
+    public boolean isCache() {
+        return cache;
+    }
+
+    /**
+     * Makes the generated services read through Laravel's cache, invalidated by their own writes.
+     */
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Seconds cached reads live for the tables that have no TTL of their own.
+     */
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = checkCacheTtl(cacheTtl);
+    }
+
+    /**
+     * Seconds cached reads of the given table live for, overriding the default TTL.
+     */
+    public void setCacheTtl(String tableName, int cacheTtl) {
+        tableCacheTtl.put(tableName.toLowerCase(), checkCacheTtl(cacheTtl));
+    }
+
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public int getCacheTtl(Table table) {
+        return tableCacheTtl.getOrDefault(table.getName().toLowerCase(), cacheTtl);
+    }
+
+    private static int checkCacheTtl(int cacheTtl) {
+        if (cacheTtl < 1) {
+            throw new IllegalArgumentException("Cache TTL must be at least 1 second");
+        }
+        return cacheTtl;
+    }
+
+    public boolean isBulk() {
+        return bulk;
+    }
+
+    /**
+     * Adds POST, PATCH and DELETE /{table}/bulk endpoints writing many rows per statement.
+     */
+    public void setBulk(boolean bulk) {
+        this.bulk = bulk;
+    }
+
+    public int getBulkChunkSize() {
+        return bulkChunkSize;
+    }
+
+    /**
+     * Rows written per INSERT, UPDATE or DELETE statement by the bulk endpoints.
+     */
+    public void setBulkChunkSize(int bulkChunkSize) {
+        if (bulkChunkSize < 1) {
+            throw new IllegalArgumentException("Bulk chunk size must be at least 1");
+        }
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    public boolean isConditionalRequests() {
+        return conditionalRequests;
+    }
+
+    /**
+     * Makes show() and index() of the tables with an updated_at column send ETag and Last-Modified
+     * headers, and answer 304 to conditional requests without building the payload.
+     */
+    public void setConditionalRequests(boolean conditionalRequests) {
+        this.conditionalRequests = conditionalRequests;
+    }
+
+    public boolean isMigrations() {
+        return migrations;
+    }
+
+    /**
+     * Also generates Laravel migrations recreating the tables, with an index on each foreign key
+     * column no index of the schema covers, and a report of the indexes added.
+     */
+    public void setMigrations(boolean migrations) {
+        this.migrations = migrations;
+    }
+
+    /**
+     * Canonical description of the options, folded into the incremental manifest fingerprints.
+     */
+    public String getDigest() {
+        return "pagination=" + pagination
+                + ";pageSizes=" + defaultPageSize + "/" + maxPageSize
+                + ";tablePagination=" + tablePagination
+                + ";cursorColumns=" + cursorColumns
+                + ";export=" + export + "/" + exportChunkSize
+                + ";cache=" + cache + "/" + cacheTtl + "/" + tableCacheTtl
+                + ";bulk=" + bulk + "/" + bulkChunkSize
+                + ";conditionalRequests=" + conditionalRequests
+                + ";migrations=" + migrations;
+    }
+}
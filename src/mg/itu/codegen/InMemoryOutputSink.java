@@ -0,0 +1,40 @@
+package mg.itu.codegen;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps generated files in memory, sorted by path. Used by tests and benchmarks,
+ * and by callers that serve the generated code instead of writing it.
+ */
+public class InMemoryOutputSink implements OutputSink {
+
+    private final SortedMap<String, String> files = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void write(String path, String content) {
+        files.put(path, content);
+    }
+
+    /**
+     * Returns the content of a generated file, or null if it was not generated.
+     */
+    public String get(String path) {
+        return files.get(path);
+    }
+
+    public Map<String, String> getFiles() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    public void clear() {
+        files.clear();
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
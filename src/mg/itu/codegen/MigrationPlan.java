@@ -0,0 +1,306 @@
+package mg.itu.codegen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mg.itu.data.Column;
+import mg.itu.data.Index;
+import mg.itu.data.Schema;
+import mg.itu.data.Table;
+
+/**
+ * Works out the Laravel migration recreating a table from its parsed definition: the Blueprint
+ * column and index calls, and the indexes added on foreign key columns that no index of the schema
+ * leads, since PostgreSQL does not index the referencing side of a foreign key.
+ *
+ * Types Blueprint cannot express exactly (unbounded varchar, real, intervals, arrays, extension types...)
+ * are added by a raw {@code ALTER TABLE} after the table is created. Defaults, checks, referential
+ * actions and partial or expression indexes are not carried over; the latter are reported as skipped.
+ */
+public class MigrationPlan {
+
+    private static final Set<String> SERIAL_TYPES = Set.of("smallserial", "serial2", "serial", "serial4", "bigserial", "serial8");
+
+    private final Table table;
+    private final Schema schema;
+
+    private final List<Map<String, Object>> columns = new ArrayList<>();
+    private final List<Map<String, Object>> rawColumns = new ArrayList<>();
+    private final List<Map<String, Object>> indexes = new ArrayList<>();
+    private final List<Map<String, Object>> foreignKeys = new ArrayList<>();
+    private final List<Map<String, Object>> addedIndexes = new ArrayList<>();
+    private final List<Map<String, Object>> skippedIndexes = new ArrayList<>();
+
+    public MigrationPlan(Table table, Schema schema) {
+        this.table = table;
+        this.schema = schema;
+        planColumns();
+        planIndexes();
+        planForeignKeys();
+    }
+
+    /**
+     * File name of the migration creating the table. All tables share the same timestamp, so
+     * Laravel runs them in name order, and before the foreign keys migration.
+     */
+    public static String getFileName(Table table) {
+        return "0001_01_01_000000_create_" + table.getName() + "_table.php";
+    }
+
+    public List<Map<String, Object>> getColumns() {
+        return columns;
+    }
+
+    public List<Map<String, Object>> getRawColumns() {
+        return rawColumns;
+    }
+
+    public List<Map<String, Object>> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Foreign key constraints of the table whose referenced table is part of the schema.
+     */
+    public List<Map<String, Object>> getForeignKeys() {
+        return foreignKeys;
+    }
+
+    /**
+     * Indexes the migration adds on foreign key columns, with the reason for each.
+     */
+    public List<Map<String, Object>> getAddedIndexes() {
+        return addedIndexes;
+    }
+
+    /**
+     * Indexes and foreign keys of the schema the migrations do not recreate, with the reason for each.
+     */
+    public List<Map<String, Object>> getSkippedIndexes() {
+        return skippedIndexes;
+    }
+
+    private void planColumns() {
+        Index primaryKey = getPrimaryKeyIndex();
+
+        for (Column column : table.getColumns()) {
+            boolean inPrimaryKey = primaryKey != null && primaryKey.getColumns().contains(column.getName());
+            String definition = getBlueprintColumn(column, isIncrements(primaryKey, column));
+            if (definition == null) {
+                String statement = "alter table \"" + table.getName() + "\" add column \"" + column.getName() + "\" "
+                        + getSqlType(column) + (column.isNullable() && !inPrimaryKey ? "" : " not null");
+                rawColumns.add(entry("statement", statement.replace("'", "\\'")));
+            } else {
+                columns.add(entry("definition", definition + (column.isNullable() && !inPrimaryKey ? "->nullable()" : "")));
+            }
+        }
+    }
+
+    private void planIndexes() {
+        Index primaryKey = getPrimaryKeyIndex();
+        if (primaryKey != null && !isIncrements(primaryKey)) {
+            indexes.add(entry("definition", "primary(" + toPhpList(primaryKey.getColumns()) + ")", "comment", ""));
+        }
+
+        for (Index index : table.getIndexes()) {
+            if (index.isPrimaryKey()) {
+                continue;
+            }
+            String name = index.getName() != null ? index.getName() : "(unnamed)";
+            if (index.isPartial() || index.isExpression() || index.getColumns().isEmpty()) {
+                skippedIndexes.add(entry("tableName", table.getName(), "name", name,
+                        "reason", index.isPartial() ? "partial index, its WHERE clause is not kept" : "expression index, its expressions are not kept"));
+                continue;
+            }
+
+            String arguments = toPhpList(index.getColumns());
+            if (index.getName() != null) {
+                arguments += ", '" + index.getName() + "'";
+            }
+            if (index.isUnique()) {
+                indexes.add(entry("definition", "unique(" + arguments + ")", "comment", ""));
+            } else if (index.getMethod().equals("btree")) {
+                indexes.add(entry("definition", "index(" + arguments + ")", "comment", ""));
+            } else {
+                if (index.getName() == null) {
+                    arguments += ", null";
+                }
+                indexes.add(entry("definition", "index(" + arguments + ", '" + index.getMethod() + "')", "comment", ""));
+            }
+        }
+
+        // Eager loads of the referenced table and deletes on it look rows up by this column
+        for (Column column : table.getColumns()) {
+            if (!column.isForeignKey() || table.canFilterOn(column.getName())) {
+                continue;
+            }
+            String name = table.getName() + "_" + column.getName() + "_index";
+            String references = column.getReferencesTable() + "." + column.getReferencesColumn();
+            indexes.add(entry("definition", "index('" + column.getName() + "')",
+                    "comment", " // foreign key to " + references + ", not indexed in the schema"));
+            addedIndexes.add(entry("tableName", table.getName(), "column", column.getName(), "name", name,
+                    "references", references,
+                    "reason", "foreign key to " + references + " that no index leads: eager loading the " + table.getName()
+                            + " of " + column.getReferencesTable() + " rows, and deleting those rows, would scan " + table.getName()));
+        }
+    }
+
+    private void planForeignKeys() {
+        for (Column column : table.getColumns()) {
+            if (!column.isForeignKey()) {
+                continue;
+            }
+            if (schema != null && schema.getTable(column.getReferencesTable()) == null) {
+                skippedIndexes.add(entry("tableName", table.getName(), "name", "foreign key " + column.getName(),
+                        "reason", "references " + column.getReferencesTable() + ", which is not part of the schema"));
+                continue;
+            }
+            foreignKeys.add(entry("column", column.getName(), "referencesTable", column.getReferencesTable(),
+                    "referencesColumn", column.getReferencesColumn()));
+        }
+    }
+
+    private Index getPrimaryKeyIndex() {
+        for (Index index : table.getIndexes()) {
+            if (index.isPrimaryKey()) {
+                return index;
+            }
+        }
+        for (Column column : table.getColumns()) {
+            if (column.isPrimaryKey()) {
+                return new Index(null, List.of(column.getName()), true, true, "btree", false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the column is a serial primary key on its own, created by an increments() call.
+     */
+    private static boolean isIncrements(Index primaryKey, Column column) {
+        return primaryKey != null && primaryKey.getColumns().equals(List.of(column.getName()))
+                && SERIAL_TYPES.contains(column.getDbType());
+    }
+
+    private boolean isIncrements(Index primaryKey) {
+        for (Column column : table.getColumns()) {
+            if (isIncrements(primaryKey, column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Blueprint call creating the column with its exact type, or null if there is none.
+     */
+    private static String getBlueprintColumn(Column column, boolean increments) {
+        String name = "'" + column.getName() + "'";
+        String modifiers = column.getTypeModifiers();
+        switch (column.getDbType()) {
+            case "smallint":
+            case "int2":
+                return "smallInteger(" + name + ")";
+            case "integer":
+            case "int":
+            case "int4":
+                return "integer(" + name + ")";
+            case "bigint":
+            case "int8":
+                return "bigInteger(" + name + ")";
+            case "smallserial":
+            case "serial2":
+                return increments ? "smallIncrements(" + name + ")" : null;
+            case "serial":
+            case "serial4":
+                return increments ? "increments(" + name + ")" : null;
+            case "bigserial":
+            case "serial8":
+                return increments ? "bigIncrements(" + name + ")" : null;
+            case "varchar":
+                return modifiers != null ? "string(" + name + ", " + modifiers + ")" : null;
+            case "char":
+            case "bpchar":
+                return "char(" + name + ", " + (modifiers != null ? modifiers : "1") + ")";
+            case "text":
+                return "text(" + name + ")";
+            case "boolean":
+            case "bool":
+                return "boolean(" + name + ")";
+            case "numeric":
+            case "decimal":
+                if (modifiers == null) {
+                    return null;
+                }
+                return "decimal(" + name + ", " + (modifiers.contains(",") ? modifiers.replace(",", ", ") : modifiers + ", 0") + ")";
+            case "double":
+            case "float8":
+                return "double(" + name + ")";
+            case "date":
+                return "date(" + name + ")";
+            // Blueprint defaults to a precision of 0, PostgreSQL to 6
+            case "time":
+                return "time(" + name + ", " + (modifiers != null ? modifiers : "6") + ")";
+            case "timetz":
+                return "timeTz(" + name + ", " + (modifiers != null ? modifiers : "6") + ")";
+            case "timestamp":
+                return "timestamp(" + name + ", " + (modifiers != null ? modifiers : "6") + ")";
+            case "timestamptz":
+                return "timestampTz(" + name + ", " + (modifiers != null ? modifiers : "6") + ")";
+            case "json":
+                return "json(" + name + ")";
+            case "jsonb":
+                return "jsonb(" + name + ")";
+            case "uuid":
+                return "uuid(" + name + ")";
+            case "bytea":
+                return "binary(" + name + ")";
+            case "inet":
+                return "ipAddress(" + name + ")";
+            case "macaddr":
+                return "macAddress(" + name + ")";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the PostgreSQL type of the column as it would be written in a CREATE TABLE.
+     */
+    private static String getSqlType(Column column) {
+        String type = column.getDbType();
+        boolean array = type.endsWith("[]");
+        if (array) {
+            type = type.substring(0, type.length() - 2);
+        }
+        if (type.equals("double")) {
+            type = "double precision";
+        }
+        if (column.getTypeModifiers() != null) {
+            type += "(" + column.getTypeModifiers() + ")";
+        }
+        return array ? type + "[]" : type;
+    }
+
+    private static String toPhpList(List<String> columns) {
+        StringBuilder list = new StringBuilder("[");
+        for (String column : columns) {
+            if (list.length() > 1) {
+                list.append(", ");
+            }
+            list.append('\'').append(column).append('\'');
+        }
+        return list.append(']').toString();
+    }
+
+    private static Map<String, Object> entry(String... keysAndValues) {
+        Map<String, Object> entry = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            entry.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return entry;
+    }
+}
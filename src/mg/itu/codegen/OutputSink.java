@@ -0,0 +1,21 @@
+package mg.itu.codegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of the generated files.
+ *
+ * Paths are relative to the root of the generated project and always use '/' as separator.
+ * Implementations must accept concurrent writes from the batch generator's worker threads.
+ */
+public interface OutputSink extends Closeable {
+
+    void write(String path, String content) throws IOException;
+
+    /**
+     * Flushes and releases the destination. Sinks that keep nothing open may do nothing.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,25 @@
+package mg.itu.codegen;
+
+/**
+ * How the generated index() endpoint pages through a table.
+ */
+public enum PaginationMode {
+    /** The whole table in one response, only suitable for small reference tables. */
+    NONE,
+    /** page/per_page with a total count: simple, but deep pages get slower as the offset grows. */
+    OFFSET,
+    /** Keyset pagination on an ordered unique key: constant cost per page whatever the depth. */
+    CURSOR;
+
+    /**
+     * Parses "none", "offset" or "cursor", case-insensitively.
+     */
+    public static PaginationMode parse(String value) {
+        for (PaginationMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pagination mode: " + value + " (expected none, offset or cursor)");
+    }
+}
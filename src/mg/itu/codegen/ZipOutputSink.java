@@ -0,0 +1,42 @@
+package mg.itu.codegen;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the whole generated project into a single zip (or jar) archive.
+ * Entries are written as they are generated; concurrent writers are serialized.
+ */
+public class ZipOutputSink implements OutputSink {
+
+    private final ZipOutputStream zip;
+
+    public ZipOutputSink(Path archive) throws IOException {
+        this(Files.newOutputStream(archive));
+    }
+
+    public ZipOutputSink(OutputStream out) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void write(String path, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(path));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Writes the archive's central directory; the archive is unreadable until this is called.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        zip.close();
+    }
+}
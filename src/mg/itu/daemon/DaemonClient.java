@@ -0,0 +1,188 @@
+package mg.itu.daemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import mg.itu.cli.CommandLineGenerator;
+
+/**
+ * Sends a request to a running {@link GeneratorDaemon} and relays its output.
+ *
+ * Relative paths in the arguments keep meaning the same thing: the client's working directory
+ * is sent along with them. Requests carry the token the daemon wrote to its token file, so only
+ * users who can read that file can use the daemon.
+ */
+public class DaemonClient {
+
+    public static final String USAGE =
+        "Usage: crudgen-client [--port <n> | --socket <path>] [--ping | --stop | <crudgen arguments>]\n"
+        + "\n"
+        + "Runs a generation on a running daemon (see crudgen-daemon) instead of starting a new JVM.\n"
+        + "\n"
+        + "Options:\n"
+        + "      --port <n>           localhost port of the daemon (default: " + GeneratorDaemon.DEFAULT_PORT + ")\n"
+        + "      --socket <path>      Unix-domain socket of the daemon\n"
+        + "      --ping               check that the daemon is running\n"
+        + "      --stop               stop the daemon\n";
+
+    private final SocketAddress address;
+    private final String token;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    public DaemonClient(SocketAddress address, String token, PrintStream out, PrintStream err) {
+        this.address = address;
+        this.token = token;
+        this.out = out;
+        this.err = err;
+    }
+
+    public static SocketAddress localhost(int port) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public static SocketAddress socket(Path socketPath) {
+        return UnixDomainSocketAddress.of(socketPath);
+    }
+
+    public int ping() throws IOException {
+        return send(List.of("ping"));
+    }
+
+    public int stop() throws IOException {
+        return send(List.of("stop"));
+    }
+
+    /**
+     * Runs crudgen with these arguments on the daemon and returns its exit code.
+     */
+    public int generate(Path workingDirectory, List<String> args) throws IOException {
+        for (String arg : args) {
+            if (arg.indexOf('\t') >= 0 || arg.indexOf('\n') >= 0 || arg.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Arguments cannot contain tabs or line breaks: " + arg);
+            }
+        }
+
+        List<String> request = new ArrayList<>();
+        request.add("generate");
+        request.add(workingDirectory.toAbsolutePath().toString());
+        request.add(String.join("\t", args));
+        return send(request);
+    }
+
+    private int send(List<String> request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            writer.write("token " + token + "\n");
+            for (String line : request) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("out ")) {
+                    out.println(line.substring(4));
+                } else if (line.startsWith("err ")) {
+                    err.println(line.substring(4));
+                } else if (line.startsWith("exit ")) {
+                    return Integer.parseInt(line.substring(5).trim());
+                }
+            }
+        }
+        throw new IOException("The daemon closed the connection without answering");
+    }
+
+    /**
+     * Parses the client command line, sends the request and returns the exit code.
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        SocketAddress address = localhost(GeneratorDaemon.DEFAULT_PORT);
+        Path tokenFile = GeneratorDaemon.getTokenFile(GeneratorDaemon.DEFAULT_PORT);
+        List<String> forwarded = new ArrayList<>();
+        String command = "generate";
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--port") || arg.equals("--socket")) {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for " + arg);
+                    }
+                    String value = args[++i];
+                    if (arg.equals("--port")) {
+                        address = localhost(parsePort(value));
+                        tokenFile = GeneratorDaemon.getTokenFile(parsePort(value));
+                    } else {
+                        address = socket(Path.of(value));
+                        tokenFile = GeneratorDaemon.getTokenFile(Path.of(value));
+                    }
+                } else if (arg.equals("--ping") || arg.equals("--stop")) {
+                    command = arg.substring(2);
+                } else {
+                    forwarded.add(arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println();
+            err.print(USAGE);
+            return CommandLineGenerator.EXIT_USAGE;
+        }
+
+        String token;
+        try {
+            token = Files.readString(tokenFile, StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            err.println("Error: cannot read the daemon token " + tokenFile + ", is the daemon running as this user?");
+            return CommandLineGenerator.EXIT_FAILURE;
+        }
+
+        DaemonClient client = new DaemonClient(address, token, out, err);
+        try {
+            switch (command) {
+                case "ping":
+                    return client.ping();
+                case "stop":
+                    return client.stop();
+                default:
+                    return client.generate(Path.of(""), forwarded);
+            }
+        } catch (IOException e) {
+            err.println("Error: cannot reach the daemon at " + address + ": " + e.getMessage());
+            return CommandLineGenerator.EXIT_FAILURE;
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            return CommandLineGenerator.EXIT_USAGE;
+        }
+    }
+
+    static int parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            if (port < 0 || port > 65535) {
+                throw new NumberFormatException();
+            }
+            return port;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port: " + value);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package mg.itu.daemon;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import mg.itu.cli.CommandLineGenerator;
+import mg.itu.codegen.CodeGenerator;
+import mg.itu.codegen.InMemoryOutputSink;
+import mg.itu.data.Table;
+import mg.itu.parser.SchemaCache;
+import mg.itu.parser.SchemaParser;
+import mg.itu.template.TemplateEngine;
+
+/**
+ * Long-running generator listening on a localhost port or a Unix-domain socket.
+ *
+ * Keeping the JVM alive saves the startup, class loading and JIT warm-up that dominate a single
+ * small generation, and the tables of unchanged schema files are reused between requests.
+ *
+ * Requests write files wherever the daemon's owner can, so every request must carry a token the
+ * daemon draws at startup and writes to a file only its owner can read: {@code ~/.crudgen/daemon-<port>.token}
+ * for a port, {@code <socket>.token} next to a Unix-domain socket, whose own permissions are
+ * restricted to the owner as well.
+ *
+ * The protocol is line based, in UTF-8. A request is the line "token &lt;token&gt;" followed by one of:
+ * <pre>
+ * generate
+ * &lt;client working directory&gt;
+ * &lt;crudgen arguments, separated by tabs&gt;
+ *
+ * ping
+ *
+ * stop
+ * </pre>
+ * and the response is any number of "out &lt;line&gt;" and "err &lt;line&gt;" lines followed by
+ * "exit &lt;code&gt;", the code being the one the command line would have returned.
+ */
+public class GeneratorDaemon implements Closeable {
+
+    public static final int DEFAULT_PORT = 7878;
+
+    public static final String USAGE =
+        "Usage: crudgen-daemon [--port <n> | --socket <path>]\n"
+        + "\n"
+        + "Keeps a warm generator running; send it work with crudgen-client.\n"
+        + "\n"
+        + "Options:\n"
+        + "      --port <n>           localhost port to listen on (default: " + DEFAULT_PORT + ")\n"
+        + "      --socket <path>      listen on a Unix-domain socket instead\n";
+
+    private static final int SCHEMA_CACHE_SIZE = 16;
+    private static final int WARM_UP_ROUNDS = 200;
+    // Time a client has to send its whole request before the connection is closed
+    private static final int REQUEST_TIMEOUT_SECONDS = 10;
+    private static final String WARM_UP_SCHEMA =
+        "CREATE TABLE warm_up (id SERIAL PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+        + "amount NUMERIC(10, 2), active BOOLEAN DEFAULT true, created_at TIMESTAMP, "
+        + "owner_id INTEGER REFERENCES owners(id))";
+
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    private final ServerSocketChannel server;
+    private final Path socketPath;
+    private final Path tokenFile;
+    private final String token;
+    private final SchemaCache schemaCache = new SchemaCache(SCHEMA_CACHE_SIZE);
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "daemon-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "daemon-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running = true;
+
+    private GeneratorDaemon(ServerSocketChannel server, Path socketPath, Path tokenFile) throws IOException {
+        this.server = server;
+        this.socketPath = socketPath;
+        this.tokenFile = tokenFile;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.token = HexFormat.of().formatHex(secret);
+        try {
+            writeToken(tokenFile, token);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Listens on the given port of the loopback interface only.
+     */
+    public static GeneratorDaemon listen(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.INET);
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        int boundPort = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        return new GeneratorDaemon(server, null, getTokenFile(boundPort));
+    }
+
+    /**
+     * Listens on a Unix-domain socket file, replacing the one a previous daemon may have left behind.
+     */
+    public static GeneratorDaemon listen(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        if (POSIX) {
+            Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+        }
+        return new GeneratorDaemon(server, socketPath, getTokenFile(socketPath));
+    }
+
+    /**
+     * Token file of a daemon listening on the given localhost port.
+     */
+    public static Path getTokenFile(int port) {
+        return Paths.get(System.getProperty("user.home"), ".crudgen", "daemon-" + port + ".token");
+    }
+
+    /**
+     * Token file of a daemon listening on the given Unix-domain socket.
+     */
+    public static Path getTokenFile(Path socketPath) {
+        return socketPath.resolveSibling(socketPath.getFileName() + ".token");
+    }
+
+    /**
+     * Writes the token to a new file created readable by its owner only, so that it is never
+     * readable by others, even briefly.
+     */
+    private static void writeToken(Path file, String token) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (POSIX && !Files.isDirectory(directory)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectories(directory);
+        }
+
+        Files.deleteIfExists(file);
+        if (POSIX) {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(file);
+        }
+        Files.writeString(file, token + "\n", StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the daemon command line and serves until stopped; returns the process exit code.
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Integer port = null;
+        Path socketPath = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.equals("--port") && !arg.equals("--socket")) {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                if (arg.equals("--port")) {
+                    port = DaemonClient.parsePort(args[++i]);
+                } else {
+                    socketPath = Paths.get(args[++i]);
+                }
+            }
+            if (port != null && socketPath != null) {
+                throw new IllegalArgumentException("--port cannot be combined with --socket");
+            }
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            err.println();
+            err.print(USAGE);
+            return CommandLineGenerator.EXIT_USAGE;
+        }
+
+        try (GeneratorDaemon daemon = socketPath != null ? listen(socketPath) : listen(port != null ? port : DEFAULT_PORT)) {
+            out.println("Listening on " + daemon.getAddress());
+            daemon.serve();
+            return CommandLineGenerator.EXIT_OK;
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return CommandLineGenerator.EXIT_FAILURE;
+        }
+    }
+
+    public String getAddress() throws IOException {
+        return socketPath != null ? socketPath.toString() : server.getLocalAddress().toString();
+    }
+
+    /**
+     * Accepts requests until a "stop" request is received or the daemon is closed.
+     */
+    public void serve() throws IOException {
+        workers.execute(this::warmUp);
+
+        try {
+            while (running) {
+                SocketChannel client = server.accept();
+                workers.execute(() -> handle(client));
+            }
+        } catch (ClosedChannelException e) {
+            // Closed by a stop request
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        workers.shutdown();
+        timeouts.shutdownNow();
+        server.close();
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+        }
+        Files.deleteIfExists(tokenFile);
+    }
+
+    private void handle(SocketChannel client) {
+        try (SocketChannel channel = client;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8)) {
+
+            // A client that connects and stays silent would otherwise hold this thread forever
+            ScheduledFuture<?> timeout = timeouts.schedule(() -> closeQuietly(channel), REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            boolean authorized = isAuthorized(reader.readLine());
+            String command = null;
+            String workingDirectory = null;
+            String arguments = null;
+            if (authorized) {
+                command = reader.readLine();
+                if ("generate".equals(command)) {
+                    workingDirectory = reader.readLine();
+                    arguments = reader.readLine();
+                }
+            }
+            // The request is read; generating may take longer than the timeout
+            if (!timeout.cancel(false)) {
+                return;
+            }
+
+            if (!authorized) {
+                reply(writer, "", "Error: invalid or missing daemon token\n", CommandLineGenerator.EXIT_FAILURE);
+            } else if ("ping".equals(command)) {
+                writer.write("exit " + CommandLineGenerator.EXIT_OK + "\n");
+            } else if ("stop".equals(command)) {
+                writer.write("exit " + CommandLineGenerator.EXIT_OK + "\n");
+                writer.flush();
+                close();
+            } else if ("generate".equals(command)) {
+                if (workingDirectory == null || arguments == null) {
+                    reply(writer, "", "Error: incomplete request\n", CommandLineGenerator.EXIT_USAGE);
+                } else {
+                    generate(writer, Paths.get(workingDirectory), arguments.isEmpty() ? new String[0] : arguments.split("\t"));
+                }
+            } else {
+                reply(writer, "", "Error: unknown request: " + command + "\n", CommandLineGenerator.EXIT_USAGE);
+            }
+        } catch (IOException e) {
+            // The client went away: nothing left to answer
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    private boolean isAuthorized(String line) {
+        if (line == null || !line.startsWith("token ")) {
+            return false;
+        }
+        // Constant time, so that response times do not tell how much of a guess is right
+        return MessageDigest.isEqual(line.substring(6).getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void generate(Writer writer, Path workingDirectory, String[] args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        CommandLineGenerator generator = new CommandLineGenerator(
+            new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8)
+        );
+        generator.setWorkingDirectory(workingDirectory);
+        generator.setSchemaCache(schemaCache);
+        int exitCode = generator.run(args);
+
+        reply(writer, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8), exitCode);
+    }
+
+    private static void reply(Writer writer, String out, String err, int exitCode) throws IOException {
+        for (String line : out.lines().toList()) {
+            writer.write("out " + line + "\n");
+        }
+        for (String line : err.lines().toList()) {
+            writer.write("err " + line + "\n");
+        }
+        writer.write("exit " + exitCode + "\n");
+    }
+
+    /**
+     * Parses and renders a sample table in memory so the first real request runs on compiled code.
+     */
+    private void warmUp() {
+        try (InMemoryOutputSink sink = new InMemoryOutputSink()) {
+            for (int i = 0; i < WARM_UP_ROUNDS && running; i++) {
+                Table table = SchemaParser.parseSchema(WARM_UP_SCHEMA);
+                new CodeGenerator(table, sink, null, TemplateEngine.getDefault()).generateAll();
+                sink.clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Warming up is best effort
+        }
+    }
+}
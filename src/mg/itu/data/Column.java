@@ -1,26 +1,56 @@
 package mg.itu.data;
 
+import mg.itu.utils.Inflector;
+
+/**
+ * A column of a table. Instances are immutable; identifiers and type names are interned, so the
+ * thousands of columns of a large schema share a handful of type and table name strings.
+ */
 public class Column {
     
-    private String name;
-    private String dbType;
-    private String phpType;
-    private boolean primaryKey;
-    private boolean nullable;
-    private boolean foreignKey;
-    private String referencesTable;
-    private String referencesColumn;
+    private final String name;
+    private final String dbType;
+    private final PhpType phpType;
+    private final boolean primaryKey;
+    private final boolean nullable;
+    private final boolean foreignKey;
+    private final String referencesTable;
+    private final String referencesColumn;
+    private final String typeModifiers;
+
+    // Derived from the name on first use
+    private String camelCaseName;
     
-    public Column(String name, String dbType, String phpType, boolean primaryKey, boolean nullable, 
+    public Column(String name, String dbType, PhpType phpType, boolean primaryKey, boolean nullable, 
               boolean foreignKey, String referencesTable, String referencesColumn) {
-        this.name = name;
-        this.dbType = dbType;
+        this(name, dbType, phpType, primaryKey, nullable, foreignKey, referencesTable, referencesColumn, null);
+    }
+
+    public Column(String name, String dbType, PhpType phpType, boolean primaryKey, boolean nullable, 
+              boolean foreignKey, String referencesTable, String referencesColumn, String typeModifiers) {
+        this.name = intern(name);
+        this.dbType = intern(dbType);
         this.phpType = phpType;
         this.primaryKey = primaryKey;
         this.nullable = nullable;
         this.foreignKey = foreignKey;
-        this.referencesTable = referencesTable;
-        this.referencesColumn = referencesColumn;
+        this.referencesTable = intern(referencesTable);
+        this.referencesColumn = intern(referencesColumn);
+        this.typeModifiers = intern(typeModifiers);
+    }
+
+    /**
+     * Returns a copy of the column marked as the primary key, which is never nullable.
+     */
+    public Column withPrimaryKey() {
+        return new Column(name, dbType, phpType, true, false, foreignKey, referencesTable, referencesColumn, typeModifiers);
+    }
+
+    /**
+     * Returns a copy of the column marked as a foreign key to the given table and column.
+     */
+    public Column withForeignKey(String referencesTable, String referencesColumn) {
+        return new Column(name, dbType, phpType, primaryKey, nullable, true, referencesTable, referencesColumn, typeModifiers);
     }
     
     public String getName() {
@@ -31,7 +61,15 @@ public class Column {
         return dbType;
     }
     
-    public String getPhpType() {
+    /**
+     * Returns the type modifiers without parentheses, {@code 255} for {@code varchar(255)} or
+     * {@code 10,2} for {@code numeric(10, 2)}, null when the type has none.
+     */
+    public String getTypeModifiers() {
+        return typeModifiers;
+    }
+    
+    public PhpType getPhpType() {
         return phpType;
     }
     
@@ -44,33 +82,15 @@ public class Column {
     }
     
     public String getCamelCaseName() {
-        if (name == null || name.isEmpty()) {
-            return name;
+        // Racy but benign: concurrent callers compute the same string
+        String camelCase = camelCaseName;
+        if (camelCase == null) {
+            camelCase = Inflector.camelCase(name);
+            camelCaseName = camelCase;
         }
-        
-        StringBuilder result = new StringBuilder();
-        boolean capitalizeNext = false;
-        
-        for (int i = 0; i < name.length(); i++) {
-            char c = name.charAt(i);
-            
-            if (c == '_') {
-                capitalizeNext = true;
-            } else if (capitalizeNext) {
-                result.append(Character.toUpperCase(c));
-                capitalizeNext = false;
-            } else {
-                if (i == 0) {
-                    result.append(Character.toLowerCase(c));
-                } else {
-                    result.append(c);
-                }
-            }
-        }
-        
-        return result.toString();
+        return camelCase;
     }
-    
+
     public boolean isTimestamp() {
         return name.equals("created_at") || name.equals("updated_at") || name.equals("deleted_at");
     }
@@ -86,4 +106,8 @@ public class Column {
     public String getReferencesColumn() {
         return referencesColumn;
     }
-}
\ No newline at end of file
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+}
@@ -0,0 +1,32 @@
+package mg.itu.data;
+
+/**
+ * A foreign key column seen from the table it references: which table holds it, and through which column.
+ */
+public class ForeignKey {
+    private final Table table;
+    private final Column column;
+
+    public ForeignKey(Table table, Column column) {
+        this.table = table;
+        this.column = column;
+    }
+
+    /**
+     * Returns the referencing table, the one holding the foreign key column.
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    public Column getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns true if at most one row can reference a given row, the column being unique on its own.
+     */
+    public boolean isUnique() {
+        return table.isUnique(column.getName());
+    }
+}
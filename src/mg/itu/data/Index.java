@@ -0,0 +1,94 @@
+package mg.itu.data;
+
+import java.util.List;
+
+/**
+ * An index of a table: a CREATE INDEX, or the index behind a PRIMARY KEY or UNIQUE constraint.
+ *
+ * Only the leading plain columns are kept; an index on {@code (lower(email))} has no columns, one on
+ * {@code (tenant_id, lower(email))} only has {@code tenant_id}. Such an index is not reported unique,
+ * since its uniqueness does not hold for the columns that were kept. Instances are immutable.
+ */
+public class Index {
+    private final String name;
+    private final List<String> columns;
+    private final boolean unique;
+    private final boolean primaryKey;
+    private final String method;
+    private final boolean partial;
+    private final boolean expression;
+
+    public Index(String name, List<String> columns, boolean unique, boolean primaryKey, String method, boolean partial) {
+        this(name, columns, unique, primaryKey, method, partial, false);
+    }
+
+    public Index(String name, List<String> columns, boolean unique, boolean primaryKey, String method, boolean partial,
+                 boolean expression) {
+        this.name = name == null ? null : name.intern();
+        this.columns = List.copyOf(columns);
+        this.unique = unique;
+        this.primaryKey = primaryKey;
+        this.method = method.intern();
+        this.partial = partial;
+        this.expression = expression;
+    }
+
+    /**
+     * Returns the index or constraint name, null for unnamed inline constraints.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public boolean isPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * Returns the access method in lower case: btree, hash, gin, gist, brin...
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns true for an index with a WHERE clause, which only serves queries repeating its predicate.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Returns true if some elements of the index are expressions, in which case {@link #getColumns()}
+     * only holds the plain columns before the first of them.
+     */
+    public boolean isExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns true if the index can serve an equality filter on the column.
+     */
+    public boolean canFilterOn(String columnName) {
+        return !partial && isLeadingColumn(columnName) && (method.equals("btree") || method.equals("hash"));
+    }
+
+    /**
+     * Returns true if the index can return rows ordered by the column, in either direction.
+     */
+    public boolean canSortOn(String columnName) {
+        return !partial && isLeadingColumn(columnName) && method.equals("btree");
+    }
+
+    private boolean isLeadingColumn(String columnName) {
+        return !columns.isEmpty() && columns.get(0).equals(columnName);
+    }
+}
@@ -0,0 +1,75 @@
+package mg.itu.data;
+
+/**
+ * The PHP-side type a PostgreSQL column maps to, driving casts, validation rules and resource conversions.
+ */
+public enum PhpType {
+    INTEGER("integer"),
+    FLOAT("float"),
+    BOOLEAN("boolean"),
+    DATE("date"),
+    DATETIME("datetime"),
+    TIME("time"),
+    JSON("json"),
+    STRING("string");
+
+    private final String name;
+
+    PhpType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the lower case name used in casts and rules: integer, float, datetime...
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Maps a canonical PostgreSQL type name to its PHP type, strings for unknown types.
+     */
+    public static PhpType fromDbType(String dbType) {
+        switch (dbType) {
+            case "int":
+            case "int2":
+            case "int4":
+            case "int8":
+            case "integer":
+            case "smallint":
+            case "bigint":
+            case "smallserial":
+            case "serial":
+            case "bigserial":
+                return INTEGER;
+            case "decimal":
+            case "numeric":
+            case "real":
+            case "float4":
+            case "float8":
+            case "double":
+                return FLOAT;
+            case "bool":
+            case "boolean":
+                return BOOLEAN;
+            case "date":
+                return DATE;
+            case "timestamp":
+            case "timestamptz":
+                return DATETIME;
+            case "time":
+            case "timetz":
+                return TIME;
+            case "json":
+            case "jsonb":
+                return JSON;
+            default:
+                return STRING;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
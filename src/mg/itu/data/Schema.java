@@ -0,0 +1,79 @@
+package mg.itu.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tables of a whole schema, looked up by name, so that a table's generated code can depend
+ * on the tables its foreign keys point to and on the tables pointing to it.
+ *
+ * The foreign key graph is indexed by referenced table once, in a single pass over the columns.
+ * Instances are immutable, so one schema can be shared by the generator threads.
+ */
+public class Schema {
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+    private final Map<String, List<ForeignKey>> referencingKeys = new HashMap<>();
+
+    public Schema(List<Table> tables) {
+        for (Table table : tables) {
+            this.tables.put(table.getName(), table);
+            for (Column column : table.getColumns()) {
+                if (column.isForeignKey() && column.getReferencesTable() != null) {
+                    referencingKeys.computeIfAbsent(column.getReferencesTable(), name -> new ArrayList<>())
+                                   .add(new ForeignKey(table, column));
+                }
+            }
+        }
+    }
+
+    public List<Table> getTables() {
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * Returns the named table, or null if it is not part of the schema.
+     */
+    public Table getTable(String name) {
+        return tables.get(name);
+    }
+
+    /**
+     * Returns the distinct tables of the schema that the table's foreign keys reference.
+     */
+    public List<Table> getReferencedTables(Table table) {
+        List<Table> referenced = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            if (column.isForeignKey() && column.getReferencesTable() != null) {
+                Table target = tables.get(column.getReferencesTable());
+                if (target != null && !referenced.contains(target)) {
+                    referenced.add(target);
+                }
+            }
+        }
+        return referenced;
+    }
+
+    /**
+     * Returns the foreign keys of the schema that reference the table, in table then column order.
+     */
+    public List<ForeignKey> getReferencingKeys(Table table) {
+        return Collections.unmodifiableList(referencingKeys.getOrDefault(table.getName(), Collections.emptyList()));
+    }
+
+    /**
+     * Returns the distinct tables of the schema holding a foreign key to the table.
+     */
+    public List<Table> getReferencingTables(Table table) {
+        List<Table> referencing = new ArrayList<>();
+        for (ForeignKey foreignKey : getReferencingKeys(table)) {
+            if (!referencing.contains(foreignKey.getTable())) {
+                referencing.add(foreignKey.getTable());
+            }
+        }
+        return referencing;
+    }
+}
@@ -1,75 +1,186 @@
 package mg.itu.data;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import mg.itu.utils.Inflector;
+
+/**
+ * A parsed table. Instances are immutable, the parser builds a new one for each statement that
+ * changes a table; the derived class names are computed once, on first use.
+ */
 public class Table {
-    private String name;
-    private List<Column> columns;
+    private final String name;
+    private final List<Column> columns;
+    private final List<Index> indexes;
+
+    // Derived from the name on first use
+    private String modelName;
+    private String controllerName;
+    private String serviceName;
+    private String resourceName;
+    private String collectionName;
+    private Column primaryKeyColumn;
     
     public Table(String name, List<Column> columns) {
-        this.name = name;
-        this.columns = columns;
+        this(name, columns, List.of());
+    }
+
+    public Table(String name, List<Column> columns, List<Index> indexes) {
+        this.name = name.intern();
+        this.columns = List.copyOf(columns);
+        this.indexes = List.copyOf(indexes);
     }
     
     public String getName() {
         return name;
     }
     
+    /**
+     * Returns the columns in declaration order, as an unmodifiable list.
+     */
     public List<Column> getColumns() {
         return columns;
     }
     
+    public List<Index> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Returns a copy of the table with the given columns instead of its own.
+     */
+    public Table withColumns(List<Column> columns) {
+        return new Table(name, columns, indexes);
+    }
+
+    /**
+     * Returns a copy of the table with the given indexes added to its own.
+     */
+    public Table withIndexes(List<Index> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        List<Index> all = new ArrayList<>(indexes.size() + added.size());
+        all.addAll(indexes);
+        all.addAll(added);
+        return new Table(name, columns, all);
+    }
+
+    /**
+     * Returns true if an equality filter on the column can use an index instead of a sequential scan.
+     */
+    public boolean canFilterOn(String columnName) {
+        if (isPrimaryKeyColumn(columnName)) {
+            return true;
+        }
+        for (Index index : indexes) {
+            if (index.canFilterOn(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if ordering by the column can read an index instead of sorting the whole table.
+     */
+    public boolean canSortOn(String columnName) {
+        if (isPrimaryKeyColumn(columnName)) {
+            return true;
+        }
+        for (Index index : indexes) {
+            if (index.canSortOn(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the column alone is the primary key or has a unique index, so no two rows share a value.
+     */
+    public boolean isUnique(String columnName) {
+        for (Index index : indexes) {
+            if (index.isUnique() && !index.isPartial() && index.getColumns().equals(List.of(columnName))) {
+                return true;
+            }
+        }
+        return isPrimaryKeyColumn(columnName);
+    }
+
+    private boolean isPrimaryKeyColumn(String columnName) {
+        for (Column column : columns) {
+            if (column.isPrimaryKey() && column.getName().equals(columnName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The getters below cache racily: concurrent callers compute equal values
+
     public String getModelName() {
-        return toPascalCase(toSingular(name));
+        String value = modelName;
+        if (value == null) {
+            value = Inflector.pascalCase(Inflector.singular(name));
+            modelName = value;
+        }
+        return value;
     }
     
     public String getControllerName() {
-        return getModelName() + "Controller";
+        String value = controllerName;
+        if (value == null) {
+            value = getModelName() + "Controller";
+            controllerName = value;
+        }
+        return value;
     }
     
     public String getServiceName() {
-        return getModelName() + "Service";
+        String value = serviceName;
+        if (value == null) {
+            value = getModelName() + "Service";
+            serviceName = value;
+        }
+        return value;
     }
     
-    public Column getPrimaryKeyColumn() {
-        for (Column column : columns) {
-            if (column.isPrimaryKey()) {
-                return column;
-            }
+    public String getResourceName() {
+        String value = resourceName;
+        if (value == null) {
+            value = getModelName() + "Resource";
+            resourceName = value;
         }
-        // Default to "id" if no primary key is found
-        return new Column("id", "integer", "integer", true, false, false, null, null);
+        return value;
     }
     
-    private String toSingular(String plural) {
-        // Simple singularization logic - can be expanded
-        if (plural.endsWith("ies")) {
-            return plural.substring(0, plural.length() - 3) + "y";
-        } else if (plural.endsWith("s") && !plural.endsWith("ss")) {
-            return plural.substring(0, plural.length() - 1);
+    public String getCollectionName() {
+        String value = collectionName;
+        if (value == null) {
+            value = getModelName() + "Collection";
+            collectionName = value;
         }
-        return plural;
+        return value;
     }
     
-    private String toPascalCase(String input) {
-        if (input == null || input.isEmpty()) {
-            return input;
+    public Column getPrimaryKeyColumn() {
+        Column value = primaryKeyColumn;
+        if (value == null) {
+            value = findPrimaryKeyColumn();
+            primaryKeyColumn = value;
         }
-        
-        StringBuilder result = new StringBuilder();
-        boolean capitalizeNext = true;
-        
-        for (char c : input.toCharArray()) {
-            if (c == '_' || c == '-' || c == ' ') {
-                capitalizeNext = true;
-            } else if (capitalizeNext) {
-                result.append(Character.toUpperCase(c));
-                capitalizeNext = false;
-            } else {
-                result.append(c);
+        return value;
+    }
+
+    private Column findPrimaryKeyColumn() {
+        for (Column column : columns) {
+            if (column.isPrimaryKey()) {
+                return column;
             }
         }
-        
-        return result.toString();
+        // Default to "id" if no primary key is found
+        return new Column("id", "integer", PhpType.INTEGER, true, false, false, null, null);
     }
-}
\ No newline at end of file
+}
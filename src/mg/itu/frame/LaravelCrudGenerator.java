@@ -2,13 +2,18 @@ package mg.itu.frame;
 
 import javax.swing.*;
 
-import mg.itu.codegen.CodeGenerator;
+import mg.itu.codegen.BatchCodeGenerator;
+import mg.itu.codegen.PaginationMode;
 import mg.itu.data.Table;
 import mg.itu.parser.SchemaParser;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 public class LaravelCrudGenerator extends JFrame {
     
@@ -16,6 +21,16 @@ public class LaravelCrudGenerator extends JFrame {
     private JTextField outputPathField;
     private JButton generateButton;
     private JButton browseButton;
+    private JCheckBox incrementalCheckBox;
+    private JComboBox<PaginationMode> paginationComboBox;
+    private JCheckBox exportCheckBox;
+    private JCheckBox cacheCheckBox;
+    private JCheckBox bulkCheckBox;
+    private JCheckBox etagsCheckBox;
+    private JCheckBox migrationsCheckBox;
+    private JProgressBar progressBar;
+    private JButton cancelButton;
+    private GenerationWorker worker;
 
     public LaravelCrudGenerator() {
         setTitle("Laravel CRUD Generator");
@@ -37,13 +52,28 @@ public class LaravelCrudGenerator extends JFrame {
         outputPathField = new JTextField();
         generateButton = new JButton("Generate CRUD");
         browseButton = new JButton("Browse...");
+        incrementalCheckBox = new JCheckBox("Only rewrite changed files");
+        paginationComboBox = new JComboBox<>(PaginationMode.values());
+        paginationComboBox.setSelectedItem(PaginationMode.OFFSET);
+        exportCheckBox = new JCheckBox("Export endpoints");
+        cacheCheckBox = new JCheckBox("Cache reads");
+        bulkCheckBox = new JCheckBox("Bulk endpoints");
+        etagsCheckBox = new JCheckBox("ETags");
+        migrationsCheckBox = new JCheckBox("Migrations");
+
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+        progressBar.setPreferredSize(new Dimension(250, progressBar.getPreferredSize().height));
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
     }
 
     private void layoutComponents() {
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
         mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        JLabel schemaLabel = new JLabel("PostgreSQL Table Schema:");
+        JLabel schemaLabel = new JLabel("PostgreSQL Table Schema (one or more CREATE TABLE statements):");
         JLabel exampleLabel = new JLabel("<html>Example: CREATE TABLE users (id SERIAL PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), created_at TIMESTAMP, updated_at TIMESTAMP);</html>");
         exampleLabel.setFont(new Font("SansSerif", Font.ITALIC, 11));
         
@@ -58,7 +88,17 @@ public class LaravelCrudGenerator extends JFrame {
         outputPanel.add(browseButton, BorderLayout.EAST);
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.add(progressBar);
+        buttonPanel.add(new JLabel("Pagination:"));
+        buttonPanel.add(paginationComboBox);
+        buttonPanel.add(exportCheckBox);
+        buttonPanel.add(cacheCheckBox);
+        buttonPanel.add(bulkCheckBox);
+        buttonPanel.add(etagsCheckBox);
+        buttonPanel.add(migrationsCheckBox);
+        buttonPanel.add(incrementalCheckBox);
         buttonPanel.add(generateButton);
+        buttonPanel.add(cancelButton);
 
         mainPanel.add(schemaPanel, BorderLayout.CENTER);
         mainPanel.add(outputPanel, BorderLayout.SOUTH);
@@ -95,6 +135,7 @@ public class LaravelCrudGenerator extends JFrame {
     private void addEventListeners() {
         browseButton.addActionListener(this::browseButtonClicked);
         generateButton.addActionListener(this::generateButtonClicked);
+        cancelButton.addActionListener(this::cancelButtonClicked);
     }
 
     private void browseButtonClicked(ActionEvent e) {
@@ -122,14 +163,163 @@ public class LaravelCrudGenerator extends JFrame {
             return;
         }
         
-        try {
-            Table table = SchemaParser.parseSchema(schema);
-            CodeGenerator generator = new CodeGenerator(table, outputPath);
-            generator.generateAll();
-            JOptionPane.showMessageDialog(this, "CRUD files generated successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            ex.printStackTrace();
+        // Parsing and writing happen on a worker thread so the window stays responsive
+        worker = new GenerationWorker(schema, outputPath, incrementalCheckBox.isSelected(),
+                (PaginationMode) paginationComboBox.getSelectedItem(), exportCheckBox.isSelected(),
+                cacheCheckBox.isSelected(), bulkCheckBox.isSelected(), etagsCheckBox.isSelected(),
+                migrationsCheckBox.isSelected());
+        setRunning(true);
+        worker.execute();
+    }
+
+    private void cancelButtonClicked(ActionEvent e) {
+        if (worker != null) {
+            worker.cancelGeneration();
+            cancelButton.setEnabled(false);
+            progressBar.setString("Cancelling...");
+        }
+    }
+
+    private void setRunning(boolean running) {
+        generateButton.setEnabled(!running);
+        incrementalCheckBox.setEnabled(!running);
+        paginationComboBox.setEnabled(!running);
+        exportCheckBox.setEnabled(!running);
+        cacheCheckBox.setEnabled(!running);
+        bulkCheckBox.setEnabled(!running);
+        etagsCheckBox.setEnabled(!running);
+        migrationsCheckBox.setEnabled(!running);
+        cancelButton.setEnabled(running);
+        progressBar.setValue(0);
+        progressBar.setString(running ? "Parsing schema..." : "");
+    }
+
+    /**
+     * Parses the schema and generates its tables in the background, publishing the progress
+     * of each table. Completion, cancellation and errors are reported on the EDT in {@code done()}.
+     */
+    private class GenerationWorker extends SwingWorker<List<String>, GenerationWorker.Progress> {
+
+        private final String schema;
+        private final String outputPath;
+        private final boolean incremental;
+        private final PaginationMode pagination;
+        private final boolean export;
+        private final boolean cache;
+        private final boolean bulk;
+        private final boolean etags;
+        private final boolean migrations;
+        private volatile boolean cancelRequested;
+        private volatile BatchCodeGenerator generator;
+        private int tableCount;
+        private long parseMillis;
+        private long generateMillis;
+
+        GenerationWorker(String schema, String outputPath, boolean incremental, PaginationMode pagination, boolean export,
+                boolean cache, boolean bulk, boolean etags, boolean migrations) {
+            this.schema = schema;
+            this.outputPath = outputPath;
+            this.incremental = incremental;
+            this.pagination = pagination;
+            this.export = export;
+            this.cache = cache;
+            this.bulk = bulk;
+            this.etags = etags;
+            this.migrations = migrations;
+        }
+
+        /**
+         * Unlike {@code cancel(true)}, never interrupts a file being written: the generator drops its
+         * pending tasks and {@code done()} only runs once nothing is left running.
+         */
+        void cancelGeneration() {
+            cancelRequested = true;
+            BatchCodeGenerator current = generator;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        protected List<String> doInBackground() throws Exception {
+            long start = System.nanoTime();
+            List<Table> tables = SchemaParser.parseSchemas(new StringReader(schema));
+            if (tables.isEmpty()) {
+                throw new IllegalArgumentException("Invalid schema: missing CREATE TABLE statement");
+            }
+            tableCount = tables.size();
+            long parsed = System.nanoTime();
+            parseMillis = (parsed - start) / 1_000_000;
+
+            generator = new BatchCodeGenerator(tables, outputPath);
+            generator.setIncremental(incremental);
+            generator.getOptions().setPagination(pagination);
+            generator.getOptions().setExport(export);
+            generator.getOptions().setCache(cache);
+            generator.getOptions().setBulk(bulk);
+            generator.getOptions().setConditionalRequests(etags);
+            generator.getOptions().setMigrations(migrations);
+            generator.setProgressListener((table, completed, total) -> publish(new Progress(table.getName(), completed, total)));
+            if (cancelRequested) {
+                throw new CancellationException("Generation cancelled");
+            }
+
+            try {
+                return generator.generateAll();
+            } finally {
+                generateMillis = (System.nanoTime() - parsed) / 1_000_000;
+            }
+        }
+
+        @Override
+        protected void process(List<Progress> chunks) {
+            // Only the latest progress matters when several tables completed since the last update
+            Progress last = chunks.get(chunks.size() - 1);
+            progressBar.setMaximum(last.total);
+            progressBar.setValue(last.completed);
+            if (!cancelRequested) {
+                progressBar.setString(last.tableName + " (" + last.completed + "/" + last.total + ")");
+            }
+        }
+
+        @Override
+        protected void done() {
+            setRunning(false);
+            worker = null;
+
+            try {
+                List<String> files = get();
+                JOptionPane.showMessageDialog(LaravelCrudGenerator.this,
+                        "CRUD files generated successfully for " + tableCount + " table(s)!\n"
+                        + files.size() + " file(s) written.\n\n"
+                        + "Parsing: " + parseMillis + " ms\n"
+                        + "Generation: " + generateMillis + " ms",
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof CancellationException) {
+                    JOptionPane.showMessageDialog(LaravelCrudGenerator.this, "Generation cancelled.",
+                            "Cancelled", JOptionPane.WARNING_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(LaravelCrudGenerator.this, "Error: " + cause.getMessage(),
+                            "Error", JOptionPane.ERROR_MESSAGE);
+                    cause.printStackTrace();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private class Progress {
+            final String tableName;
+            final int completed;
+            final int total;
+
+            Progress(String tableName, int completed, int total) {
+                this.tableName = tableName;
+                this.completed = completed;
+                this.total = total;
+            }
         }
     }
 }
\ No newline at end of file
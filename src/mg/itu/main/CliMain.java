@@ -0,0 +1,13 @@
+package mg.itu.main;
+
+import mg.itu.cli.CommandLineGenerator;
+
+/**
+ * Headless entry point for scripts and CI: never loads AWT or Swing.
+ */
+public class CliMain {
+    public static void main(String[] args) {
+        int exitCode = new CommandLineGenerator(System.out, System.err).run(args);
+        System.exit(exitCode);
+    }
+}
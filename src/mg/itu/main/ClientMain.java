@@ -0,0 +1,13 @@
+package mg.itu.main;
+
+import mg.itu.daemon.DaemonClient;
+
+/**
+ * Sends a generation to a running daemon instead of generating in this JVM.
+ */
+public class ClientMain {
+    public static void main(String[] args) {
+        int exitCode = DaemonClient.run(args, System.out, System.err);
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,13 @@
+package mg.itu.main;
+
+import mg.itu.daemon.GeneratorDaemon;
+
+/**
+ * Starts the generator daemon; like the command line, it never loads AWT or Swing.
+ */
+public class DaemonMain {
+    public static void main(String[] args) {
+        int exitCode = GeneratorDaemon.run(args, System.out, System.err);
+        System.exit(exitCode);
+    }
+}
@@ -7,6 +7,15 @@ import mg.itu.frame.LaravelCrudGenerator;
 
 public class Main {
      public static void main(String[] args) {
+        // Any argument means a headless run; the Swing classes are then never loaded
+        if (args.length > 0) {
+            CliMain.main(args);
+            return;
+        }
+        launchGui();
+    }
+
+    private static void launchGui() {
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -16,4 +25,4 @@ public class Main {
             new LaravelCrudGenerator().setVisible(true);
         });
     }
-}
\ No newline at end of file
+}
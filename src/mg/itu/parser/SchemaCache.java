@@ -0,0 +1,70 @@
+package mg.itu.parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mg.itu.data.Table;
+
+/**
+ * Keeps the tables of recently parsed schema files in memory, for long-running processes that
+ * generate from the same schema over and over.
+ *
+ * An entry is keyed by the files' paths, sizes and modification times, so editing a schema file
+ * is enough to have it parsed again. The least recently used entries are evicted past the capacity.
+ */
+public class SchemaCache {
+
+    private final Map<String, List<Table>> entries;
+
+    public SchemaCache(int capacity) {
+        this.entries = new LinkedHashMap<String, List<Table>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Table>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the tables of the given schema files, parsing them only if they changed since last time.
+     * The returned list is shared and must not be modified.
+     */
+    public List<Table> parseSchemas(List<Path> paths) throws IOException {
+        String key = key(paths);
+
+        synchronized (entries) {
+            List<Table> tables = entries.get(key);
+            if (tables != null) {
+                return tables;
+            }
+        }
+
+        // Parsed outside the lock: concurrent requests for other schemas are not held up
+        List<Table> tables = Collections.unmodifiableList(SchemaParser.parseSchemas(paths));
+        synchronized (entries) {
+            entries.put(key, tables);
+        }
+        return tables;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static String key(List<Path> paths) throws IOException {
+        List<String> parts = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            Path absolute = path.toAbsolutePath().normalize();
+            parts.add(absolute + "|" + Files.size(absolute) + "|" + Files.getLastModifiedTime(absolute).toMillis());
+        }
+        return String.join("\n", parts);
+    }
+}
@@ -0,0 +1,302 @@
+package mg.itu.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import mg.itu.data.Column;
+import mg.itu.data.Index;
+import mg.itu.data.PhpType;
+import mg.itu.data.Table;
+
+/**
+ * Keeps the parsed tables of schema files on disk, so that a later run on the same schema skips
+ * the parser, for command line runs that do not go through the daemon.
+ *
+ * Entries are keyed by the SHA-256 of the files' contents and of the compiled parser and model classes:
+ * any change to the schema or any rebuild that changes the parser selects another entry, even between
+ * snapshots sharing a version number, and the previous entry is removed when
+ * a new one is written, so a cache directory holds the latest version of one schema. An entry is a
+ * compact binary file, all strings stored once, that is memory-mapped and decoded in a single pass on load.
+ */
+public class SchemaFileCache {
+
+    // Bump whenever the layout below changes; parser changes are caught by the class digest
+    private static final int FORMAT_VERSION = 2;
+    private static final int MAGIC = 0x43475343; // "CGSC"
+    private static final String SUFFIX = ".schema";
+
+    private static final int NO_STRING = -1;
+    private static final PhpType[] PHP_TYPES = PhpType.values();
+
+    // Classes whose code decides the tables a schema parses to, or how an entry is laid out
+    private static final List<Class<?>> PARSER_CLASSES = List.of(
+        SchemaFileCache.class, SchemaParser.class, SqlLexer.class, SqlLexer.TokenType.class, SqlStatementReader.class,
+        Table.class, Column.class, Index.class, PhpType.class
+    );
+    private static final String PARSER_DIGEST = digestClasses();
+
+    private final Path directory;
+
+    public SchemaFileCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the tables of the given schema files, from the cache when an entry for their
+     * content exists, parsing them and writing a new entry otherwise.
+     */
+    public List<Table> parseSchemas(List<Path> paths) throws IOException {
+        String key = key(paths);
+        Path file = directory.resolve(key + SUFFIX);
+
+        if (Files.isRegularFile(file)) {
+            List<Table> tables = read(file, key);
+            if (tables != null) {
+                return tables;
+            }
+        }
+
+        List<Table> tables = SchemaParser.parseSchemas(paths);
+        try {
+            write(file, key, tables);
+        } catch (IOException e) {
+            // The cache only saves time: a read-only or full disk must not fail the run
+        }
+        return tables;
+    }
+
+    /**
+     * SHA-256 of the parser classes and of every file's name and content, in order.
+     */
+    private static String key(List<Path> paths) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update((FORMAT_VERSION + "|" + PARSER_DIGEST + "\n").getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[64 * 1024];
+        for (Path path : paths) {
+            digest.update((path.getFileName() + "\n").getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+                while (in.read(buffer) != -1) {
+                    // Digested while reading
+                }
+            }
+            digest.update((byte) 0);
+        }
+
+        return hex(digest.digest());
+    }
+
+    /**
+     * SHA-256 of the bytecode of the parser classes, computed once per run. A class file that cannot be
+     * read yields a digest of its own for this run, so that no entry written by another build is trusted.
+     */
+    private static String digestClasses() {
+        MessageDigest digest = sha256();
+        for (Class<?> type : PARSER_CLASSES) {
+            String resource = type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class";
+            digest.update((resource + "\n").getBytes(StandardCharsets.UTF_8));
+            try (InputStream in = type.getResourceAsStream(resource)) {
+                if (in == null) {
+                    return UUID.randomUUID().toString();
+                }
+                digest.update(in.readAllBytes());
+            } catch (IOException e) {
+                return UUID.randomUUID().toString();
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Decodes an entry, or returns null if the file is not a complete entry for the key.
+     */
+    private static List<Table> read(Path file, String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            if (!key.equals(string(buffer, strings))) {
+                return null;
+            }
+
+            int tableCount = buffer.getInt();
+            List<Table> tables = new ArrayList<>(tableCount);
+            for (int t = 0; t < tableCount; t++) {
+                String name = string(buffer, strings);
+
+                int columnCount = buffer.getInt();
+                List<Column> columns = new ArrayList<>(columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    String columnName = string(buffer, strings);
+                    String dbType = string(buffer, strings);
+                    PhpType phpType = PHP_TYPES[buffer.get()];
+                    byte flags = buffer.get();
+                    columns.add(new Column(columnName, dbType, phpType, (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0,
+                            string(buffer, strings), string(buffer, strings), string(buffer, strings)));
+                }
+
+                int indexCount = buffer.getInt();
+                List<Index> indexes = new ArrayList<>(indexCount);
+                for (int x = 0; x < indexCount; x++) {
+                    String indexName = string(buffer, strings);
+                    List<String> indexColumns = new ArrayList<>();
+                    for (int c = buffer.getInt(); c > 0; c--) {
+                        indexColumns.add(string(buffer, strings));
+                    }
+                    String method = string(buffer, strings);
+                    byte flags = buffer.get();
+                    indexes.add(new Index(indexName, indexColumns, (flags & 1) != 0, (flags & 2) != 0, method,
+                            (flags & 4) != 0, (flags & 8) != 0));
+                }
+                tables.add(new Table(name, columns, indexes));
+            }
+            return buffer.hasRemaining() ? null : tables;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            // Truncated or corrupt entry: parsed again and overwritten
+            return null;
+        }
+    }
+
+    private static String string(ByteBuffer buffer, String[] strings) {
+        int index = buffer.getInt();
+        return index == NO_STRING ? null : strings[index];
+    }
+
+    /**
+     * Writes the entry through a temporary file, so a concurrent or interrupted run never reads
+     * half an entry, then removes the entries of previous schema versions.
+     */
+    private void write(Path file, String key, List<Table> tables) throws IOException {
+        Map<String, Integer> pool = new LinkedHashMap<>();
+        List<Integer> references = new ArrayList<>();
+        intern(pool, references, key);
+        for (Table table : tables) {
+            intern(pool, references, table.getName());
+            for (Column column : table.getColumns()) {
+                intern(pool, references, column.getName());
+                intern(pool, references, column.getDbType());
+                intern(pool, references, column.getReferencesTable());
+                intern(pool, references, column.getReferencesColumn());
+                intern(pool, references, column.getTypeModifiers());
+            }
+            for (Index index : table.getIndexes()) {
+                intern(pool, references, index.getName());
+                for (String column : index.getColumns()) {
+                    intern(pool, references, column);
+                }
+                intern(pool, references, index.getMethod());
+            }
+        }
+
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(pool.size());
+                for (String value : pool.keySet()) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+
+                // Same traversal as above, strings replaced by their pool index
+                int next = 0;
+                out.writeInt(references.get(next++));
+                out.writeInt(tables.size());
+                for (Table table : tables) {
+                    out.writeInt(references.get(next++));
+                    out.writeInt(table.getColumns().size());
+                    for (Column column : table.getColumns()) {
+                        out.writeInt(references.get(next++));
+                        out.writeInt(references.get(next++));
+                        out.writeByte(column.getPhpType().ordinal());
+                        out.writeByte((column.isPrimaryKey() ? 1 : 0) | (column.isNullable() ? 2 : 0) | (column.isForeignKey() ? 4 : 0));
+                        out.writeInt(references.get(next++));
+                        out.writeInt(references.get(next++));
+                        out.writeInt(references.get(next++));
+                    }
+                    out.writeInt(table.getIndexes().size());
+                    for (Index index : table.getIndexes()) {
+                        out.writeInt(references.get(next++));
+                        out.writeInt(index.getColumns().size());
+                        for (int c = 0; c < index.getColumns().size(); c++) {
+                            out.writeInt(references.get(next++));
+                        }
+                        out.writeInt(references.get(next++));
+                        out.writeByte((index.isUnique() ? 1 : 0) | (index.isPrimaryKey() ? 2 : 0)
+                                | (index.isPartial() ? 4 : 0) | (index.isExpression() ? 8 : 0));
+                    }
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        removeStaleEntries(file);
+    }
+
+    private static void intern(Map<String, Integer> pool, List<Integer> references, String value) {
+        references.add(value == null ? NO_STRING : pool.computeIfAbsent(value, v -> pool.size()));
+    }
+
+    private void removeStaleEntries(Path current) throws IOException {
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : entries) {
+                if (!entry.equals(current)) {
+                    stale.add(entry);
+                }
+            }
+        }
+        for (Path entry : stale) {
+            Files.deleteIfExists(entry);
+        }
+    }
+}
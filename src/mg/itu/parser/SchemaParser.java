@@ -1,243 +1,562 @@
 package mg.itu.parser;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import mg.itu.data.Column;
+import mg.itu.data.Index;
+import mg.itu.data.PhpType;
 import mg.itu.data.Table;
+import mg.itu.parser.SqlLexer.TokenType;
 
 public class SchemaParser {
     public static Table parseSchema(String schema) {
-        // Simple parser for PostgreSQL CREATE TABLE statements
-        schema = schema.trim();
-        
-        // Extract table name
-        String tableName = extractTableName(schema);
-        
-        // Extract column definitions
-        List<Column> columns = extractColumns(schema);
-        
-        return new Table(tableName, columns);
-    }
-    
-    private static String extractTableName(String schema) {
-        schema = schema.toLowerCase();
-        int createTableIndex = schema.indexOf("create table");
-    
-        if (createTableIndex == -1) {
+        // Parser for a single PostgreSQL CREATE TABLE statement
+        SqlLexer lexer = new SqlLexer(schema);
+
+        // Find the CREATE TABLE statement
+        while (lexer.type() != TokenType.EOF && !isCreateTable(lexer)) {
+            lexer.next();
+        }
+
+        if (lexer.type() == TokenType.EOF) {
             throw new IllegalArgumentException("Invalid schema: missing CREATE TABLE statement");
         }
-    
-        int startNameIndex = schema.indexOf(" ", createTableIndex + 12) + 1;
-        int endNameIndex = schema.indexOf("(", startNameIndex); 
-    
-        if (endNameIndex == -1) {
-            throw new IllegalArgumentException("Invalid schema: missing '(' after table name");
-        }
-    
-        String tableName = schema.substring(startNameIndex, endNameIndex).trim(); // Apply trim here
-    
-        // Remove schema prefix if it exists
-        if (tableName.contains(".")) {
-            tableName = tableName.substring(tableName.indexOf(".") + 1);
-        }
-    
-        return tableName;
-    }    
-    
-    private static List<Column> extractColumns(String schema) {
-        // Find the column definitions between parentheses
-        int startIndex = schema.indexOf("(");
-        int endIndex = schema.lastIndexOf(")");
-        
-        if (startIndex == -1 || endIndex == -1) {
-            throw new IllegalArgumentException("Invalid schema: missing column definitions");
-        }
-        
-        String columnDefs = schema.substring(startIndex + 1, endIndex).trim();
-        
-        // Split column definitions
-        List<String> columnStrings = new ArrayList<>();
-        int parenthesesCount = 0;
-        StringBuilder currentColumn = new StringBuilder();
-        
-        for (char c : columnDefs.toCharArray()) {
-            if (c == '(') parenthesesCount++;
-            else if (c == ')') parenthesesCount--;
-            
-            if (c == ',' && parenthesesCount == 0) {
-                columnStrings.add(currentColumn.toString().trim());
-                currentColumn = new StringBuilder();
-            } else {
-                currentColumn.append(c);
+
+        return parseCreateTable(lexer, true);
+    }
+
+    /**
+     * Parses every {@code CREATE TABLE} of a full schema dump, streaming it from disk.
+     */
+    public static List<Table> parseSchemas(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parseSchemas(reader);
+        }
+    }
+
+    /**
+     * Parses several schema files as one schema, in the given order: constraints in a later file
+     * may refer to tables created in an earlier one.
+     */
+    public static List<Table> parseSchemas(List<Path> paths) throws IOException {
+        Map<String, Table> tables = new LinkedHashMap<>();
+        for (Path path : paths) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                parseInto(reader, tables);
             }
         }
-        
-        if (currentColumn.length() > 0) {
-            columnStrings.add(currentColumn.toString().trim());
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * Parses every {@code CREATE TABLE} read from the given reader, in declaration order.
+     * Primary keys, foreign keys and unique constraints added afterwards with {@code ALTER TABLE ... ADD CONSTRAINT},
+     * and {@code CREATE INDEX} statements (the way pg_dump emits them), are applied to the tables already parsed.
+     */
+    public static List<Table> parseSchemas(Reader reader) throws IOException {
+        Map<String, Table> tables = new LinkedHashMap<>();
+        parseInto(reader, tables);
+        return new ArrayList<>(tables.values());
+    }
+
+    private static void parseInto(Reader reader, Map<String, Table> tables) throws IOException {
+        SqlStatementReader statements = new SqlStatementReader(reader);
+
+        String statement;
+        while ((statement = statements.next()) != null) {
+            SqlLexer lexer = new SqlLexer(statement);
+
+            if (lexer.accept("ALTER")) {
+                applyAlterTable(lexer, tables);
+            } else if (lexer.accept("CREATE")) {
+                if (lexer.isAny("UNIQUE", "INDEX")) {
+                    parseCreateIndex(lexer, tables);
+                } else if (acceptTableKeyword(lexer)) {
+                    // Partitions and typed tables have no column list of their own and are skipped
+                    Table table = parseCreateTable(lexer, false);
+                    if (table != null) {
+                        tables.put(table.getName(), table);
+                    }
+                }
+            }
         }
-        
-        // Process each column definition
+    }
+
+    /**
+     * Checks for CREATE [ GLOBAL | LOCAL ] [ TEMP | TEMPORARY | UNLOGGED ] TABLE, leaving the lexer
+     * on the table name when it matches.
+     */
+    private static boolean isCreateTable(SqlLexer lexer) {
+        return lexer.accept("CREATE") && acceptTableKeyword(lexer);
+    }
+
+    private static boolean acceptTableKeyword(SqlLexer lexer) {
+        while (lexer.isAny("GLOBAL", "LOCAL", "TEMP", "TEMPORARY", "UNLOGGED")) {
+            lexer.next();
+        }
+        return lexer.accept("TABLE");
+    }
+
+    private static Table parseCreateTable(SqlLexer lexer, boolean strict) {
+        if (lexer.accept("IF")) {
+            lexer.accept("NOT");
+            lexer.accept("EXISTS");
+        }
+
+        String tableName = parseQualifiedName(lexer);
+
+        if (tableName == null || lexer.type() != TokenType.LEFT_PAREN) {
+            if (strict) {
+                throw new IllegalArgumentException("Invalid schema: missing '(' after table name");
+            }
+            return null;
+        }
+        lexer.next();
+
+        // Table constraints may reference columns declared after them, so apply them last
         List<Column> columns = new ArrayList<>();
-        for (String colDef : columnStrings) {
-            // Skip certain constraints
-            if (colDef.toLowerCase().startsWith("constraint") ||
-            colDef.toLowerCase().startsWith("primary key") ||
-            colDef.toLowerCase().startsWith("unique")) {
-            continue;
-            }
-
-            // Process foreign key constraints
-            if (colDef.toLowerCase().startsWith("foreign key")) {
-            processForeignKeyConstraint(colDef, columns);
-            continue;
-            }
-                        
-            Column column = parseColumnDefinition(colDef);
-            if (column != null) {
-                columns.add(column);
-            }
-        }
-        
-        return columns;
-    }
-
-    private static void processForeignKeyConstraint(String constraint, List<Column> columns) {
-        // Extract column name: FOREIGN KEY (column_name) REFERENCES target_table(target_column)
-        int startCol = constraint.indexOf("(");
-        int endCol = constraint.indexOf(")");
-        if (startCol == -1 || endCol == -1) return;
-        
-        String columnName = constraint.substring(startCol + 1, endCol).trim();
-        
-        // Extract references
-        int referencesIdx = constraint.toLowerCase().indexOf("references");
-        if (referencesIdx == -1) return;
-        
-        String references = constraint.substring(referencesIdx + "references".length()).trim();
-        
-        // Parse target table and column
-        int targetTableEnd = references.indexOf("(");
-        if (targetTableEnd == -1) return;
-        
-        String targetTable = references.substring(0, targetTableEnd).trim();
-        
-        int targetColStart = references.indexOf("(");
-        int targetColEnd = references.indexOf(")", targetColStart);
-        if (targetColStart == -1 || targetColEnd == -1) return;
-        
-        String targetColumn = references.substring(targetColStart + 1, targetColEnd).trim();
-        
-        // Update the corresponding column
-        for (Column column : columns) {
-            if (column.getName().equals(columnName)) {
-                Column updatedColumn = new Column(
-                    column.getName(), 
-                    column.getDbType(), 
-                    column.getPhpType(), 
-                    column.isPrimaryKey(), 
-                    column.isNullable(),
-                    true,  // is foreign key
-                    targetTable,
-                    targetColumn
-                );
-                
-                // Replace the column in the list
-                columns.set(columns.indexOf(column), updatedColumn);
+        List<String[]> foreignKeys = new ArrayList<>();
+        List<String> primaryKey = new ArrayList<>();
+        List<Index> indexes = new ArrayList<>();
+
+        while (lexer.type() != TokenType.RIGHT_PAREN) {
+            if (lexer.type() == TokenType.EOF) {
+                if (strict) {
+                    throw new IllegalArgumentException("Invalid schema: missing column definitions");
+                }
                 break;
             }
+
+            parseTableElement(lexer, columns, primaryKey, foreignKeys, indexes);
+            skipToElementEnd(lexer);
+            lexer.accept(TokenType.COMMA);
+        }
+
+        markPrimaryKey(columns, primaryKey);
+        for (String[] foreignKey : foreignKeys) {
+            markForeignKey(columns, foreignKey[0], foreignKey[1], foreignKey[2]);
+        }
+
+        return new Table(tableName, columns, indexes);
+    }
+
+    private static void parseTableElement(SqlLexer lexer, List<Column> columns, List<String> primaryKey, List<String[]> foreignKeys, List<Index> indexes) {
+        // Named table constraint: CONSTRAINT name ...
+        if (lexer.accept("CONSTRAINT")) {
+            String constraintName = lexer.identifier();
+            lexer.next();
+            parseTableConstraint(lexer, constraintName, primaryKey, foreignKeys, indexes);
+            return;
+        }
+
+        if (lexer.isAny("PRIMARY", "FOREIGN", "UNIQUE", "CHECK", "EXCLUDE", "LIKE")) {
+            parseTableConstraint(lexer, null, primaryKey, foreignKeys, indexes);
+            return;
+        }
+
+        Column column = parseColumnDefinition(lexer, indexes);
+        if (column != null) {
+            columns.add(column);
+        }
+    }
+
+    /**
+     * Reads a PRIMARY KEY, FOREIGN KEY or UNIQUE table constraint; other constraints are left for the caller to skip.
+     * Primary keys and unique constraints are backed by an index, which is added to {@code indexes}.
+     */
+    private static void parseTableConstraint(SqlLexer lexer, String constraintName, List<String> primaryKey, List<String[]> foreignKeys, List<Index> indexes) {
+        if (lexer.accept("PRIMARY")) {
+            lexer.accept("KEY");
+            List<String> keyColumns = parseColumnList(lexer);
+            primaryKey.addAll(keyColumns);
+            if (!keyColumns.isEmpty()) {
+                indexes.add(new Index(constraintName, keyColumns, true, true, "btree", false));
+            }
+        } else if (lexer.accept("UNIQUE")) {
+            if (lexer.accept("NULLS")) {
+                lexer.accept("NOT");
+                lexer.accept("DISTINCT");
+            }
+            // UNIQUE USING INDEX name has no column list: the index itself was already read
+            List<String> uniqueColumns = parseColumnList(lexer);
+            if (!uniqueColumns.isEmpty()) {
+                indexes.add(new Index(constraintName, uniqueColumns, true, false, "btree", false));
+            }
+        } else if (lexer.accept("FOREIGN")) {
+            // FOREIGN KEY (column_name) REFERENCES target_table(target_column)
+            lexer.accept("KEY");
+            List<String> sourceColumns = parseColumnList(lexer);
+            if (!lexer.accept("REFERENCES")) return;
+
+            String targetTable = parseQualifiedName(lexer);
+            List<String> targetColumns = parseColumnList(lexer);
+
+            // Only single-column keys map onto a belongsTo relationship
+            if (targetTable != null && sourceColumns.size() == 1 && targetColumns.size() <= 1) {
+                String targetColumn = targetColumns.isEmpty() ? "id" : targetColumns.get(0);
+                foreignKeys.add(new String[] { sourceColumns.get(0), targetTable, targetColumn });
+            }
         }
     }
-    
-    private static Column parseColumnDefinition(String colDef) {
-        String[] parts = colDef.trim().split("\\s+", 2);
-        
-        if (parts.length < 2) {
+
+    private static Column parseColumnDefinition(SqlLexer lexer, List<Index> indexes) {
+        if (!lexer.isIdentifier()) {
+            return null;
+        }
+
+        String name = lexer.identifier();
+        lexer.next();
+
+        StringBuilder typeModifiers = new StringBuilder();
+        String dataType = parseDataType(lexer, typeModifiers);
+        if (dataType == null) {
             return null;
         }
-        
-        String name = parts[0].replace("\"", "").trim();
-        String dataTypeWithConstraints = parts[1].trim();
-        
-        // Extract data type
-        String dataType;
-        if (dataTypeWithConstraints.contains(" ")) {
-            dataType = dataTypeWithConstraints.split(" ")[0].trim();
-        } else {
-            dataType = dataTypeWithConstraints;
-        }
-        
-        // Standardize data type
-        dataType = dataType.toLowerCase();
-        if (dataType.contains("(")) {
-            dataType = dataType.substring(0, dataType.indexOf("("));
-        }
-        
-        // Determine if it's a primary key
-        boolean isPrimaryKey = colDef.toLowerCase().contains("primary key");
-        
-        // Determine if it's nullable
-        boolean isNullable = !colDef.toLowerCase().contains("not null");
-        
-        // Check for inline REFERENCES
+
+        boolean isPrimaryKey = false;
+        boolean isNullable = true;
         boolean isForeignKey = false;
         String referencesTable = null;
         String referencesColumn = null;
-        
-        // Look for the REFERENCES keyword
-        int referencesIdx = colDef.toUpperCase().indexOf("REFERENCES");
-        if (referencesIdx != -1) {
-            isForeignKey = true;
-            String referencesPart = colDef.substring(referencesIdx + "REFERENCES".length()).trim();
-            
-            // Parse table and column
-            int openParenIdx = referencesPart.indexOf('(');
-            int closeParenIdx = referencesPart.indexOf(')', openParenIdx);
-            
-            if (openParenIdx != -1 && closeParenIdx != -1) {
-                referencesTable = referencesPart.substring(0, openParenIdx).trim();
-                referencesColumn = referencesPart.substring(openParenIdx + 1, closeParenIdx).trim();
-            }
-        }
-        
+        String constraintName = null;
+
+        // Column constraints, in any order
+        while (!isElementEnd(lexer)) {
+            if (lexer.accept("CONSTRAINT")) {
+                constraintName = lexer.identifier();
+                lexer.next();
+            } else if (lexer.accept("NOT")) {
+                if (lexer.accept("NULL")) {
+                    isNullable = false;
+                }
+            } else if (lexer.accept("NULL")) {
+                isNullable = true;
+            } else if (lexer.accept("PRIMARY")) {
+                lexer.accept("KEY");
+                isPrimaryKey = true;
+                isNullable = false;
+                indexes.add(new Index(constraintName, List.of(name), true, true, "btree", false));
+            } else if (lexer.accept("UNIQUE")) {
+                indexes.add(new Index(constraintName, List.of(name), true, false, "btree", false));
+            } else if (lexer.accept("REFERENCES")) {
+                referencesTable = parseQualifiedName(lexer);
+                List<String> targetColumns = parseColumnList(lexer);
+                referencesColumn = targetColumns.isEmpty() ? "id" : targetColumns.get(0);
+                isForeignKey = referencesTable != null;
+                skipReferentialActions(lexer);
+            } else if (lexer.accept("DEFAULT")) {
+                skipExpression(lexer);
+            } else if (lexer.type() == TokenType.LEFT_PAREN) {
+                // CHECK (...), GENERATED ... AS (...)
+                lexer.skipGroup();
+            } else {
+                lexer.next();
+            }
+        }
+
         // Map PostgreSQL types to PHP/Laravel types
-        String phpType = mapPostgresToPhpType(dataType);
-        
-        return new Column(name, dataType, phpType, isPrimaryKey, isNullable, isForeignKey, referencesTable, referencesColumn);
-    }
-        
-    private static String mapPostgresToPhpType(String postgresType) {
-        switch (postgresType.toLowerCase()) {
-            case "int":
-            case "integer":
-            case "smallint":
-            case "bigint":
-            case "serial":
-            case "bigserial":
-                return "integer";
-            case "decimal":
-            case "numeric":
-            case "real":
-            case "double":
-                return "float";
-            case "boolean":
-                return "boolean";
-            case "date":
-                return "date";
-            case "timestamp":
-            case "timestamptz":
-                return "datetime";
-            case "time":
-                return "time";
-            case "json":
-            case "jsonb":
-                return "json";
-            case "char":
-            case "varchar":
-            case "text":
-                return "string";
-            default:
-                return "string"; // Default to string for unknown types
-        }
-    }
-}
\ No newline at end of file
+        PhpType phpType = PhpType.fromDbType(dataType);
+
+        return new Column(name, dataType, phpType, isPrimaryKey, isNullable, isForeignKey, referencesTable, referencesColumn,
+                typeModifiers.length() > 0 ? typeModifiers.toString() : null);
+    }
+
+    /**
+     * Reads a type name with its modifiers and returns it in a canonical lower case form:
+     * {@code character varying(255)} becomes {@code varchar}, {@code timestamp(0) with time zone}
+     * becomes {@code timestamptz}, array types keep a {@code []} suffix. The modifiers, without
+     * parentheses or blanks, are appended to {@code modifiers}.
+     */
+    private static String parseDataType(SqlLexer lexer, StringBuilder modifiers) {
+        String dataType = parseQualifiedName(lexer);
+        if (dataType == null) {
+            return null;
+        }
+
+        boolean withTimeZone = false;
+        boolean array = false;
+
+        while (true) {
+            if (lexer.type() == TokenType.LEFT_PAREN) {
+                // Type modifiers: varchar(255), numeric(10, 2), timestamp(0)
+                int from = lexer.end();
+                lexer.skipGroup();
+                String text = lexer.text(from, lexer.start()).trim();
+                if (modifiers.length() == 0 && text.endsWith(")")) {
+                    modifiers.append(text.substring(0, text.length() - 1).replaceAll("\\s+", ""));
+                }
+            } else if (lexer.type() == TokenType.SYMBOL && lexer.text().equals("[")) {
+                array = true;
+                while (lexer.type() != TokenType.EOF && !(lexer.type() == TokenType.SYMBOL && lexer.text().equals("]"))) {
+                    lexer.next();
+                }
+                lexer.next();
+            } else if (lexer.accept("ARRAY")) {
+                array = true;
+            } else if (lexer.accept("VARYING")) {
+                dataType = dataType.equals("bit") ? "varbit" : "varchar";
+            } else if (lexer.accept("PRECISION")) {
+                // double precision
+            } else if (lexer.accept("WITH")) {
+                withTimeZone = true;
+            } else if (lexer.isAny("WITHOUT", "TIME", "ZONE", "YEAR", "MONTH", "DAY", "HOUR", "MINUTE", "SECOND", "TO")) {
+                lexer.next();
+            } else {
+                break;
+            }
+        }
+
+        if (dataType.equals("character")) {
+            dataType = "char";
+        }
+        if (withTimeZone && (dataType.equals("timestamp") || dataType.equals("time"))) {
+            dataType += "tz";
+        }
+        return array ? dataType + "[]" : dataType;
+    }
+
+    /**
+     * Reads a possibly schema-qualified name and returns its last part: {@code public."users"} gives {@code users}.
+     */
+    private static String parseQualifiedName(SqlLexer lexer) {
+        if (!lexer.isIdentifier()) {
+            return null;
+        }
+
+        String name = lexer.identifier();
+        lexer.next();
+        while (lexer.accept(TokenType.DOT)) {
+            if (!lexer.isIdentifier()) break;
+            name = lexer.identifier();
+            lexer.next();
+        }
+        return name;
+    }
+
+    /**
+     * Reads an optional parenthesized list of column names.
+     */
+    private static List<String> parseColumnList(SqlLexer lexer) {
+        List<String> names = new ArrayList<>();
+        if (!lexer.accept(TokenType.LEFT_PAREN)) {
+            return names;
+        }
+
+        while (lexer.type() != TokenType.RIGHT_PAREN && lexer.type() != TokenType.EOF) {
+            if (lexer.isIdentifier()) {
+                names.add(lexer.identifier());
+            }
+            lexer.next();
+        }
+        lexer.accept(TokenType.RIGHT_PAREN);
+        return names;
+    }
+
+    private static void skipReferentialActions(SqlLexer lexer) {
+        // ON DELETE SET NULL must not be mistaken for a NULL constraint
+        while (lexer.accept("ON")) {
+            lexer.next(); // DELETE | UPDATE
+            if (lexer.accept("SET")) {
+                lexer.next(); // NULL | DEFAULT
+                parseColumnList(lexer);
+            } else if (lexer.accept("NO")) {
+                lexer.accept("ACTION");
+            } else {
+                lexer.next(); // CASCADE | RESTRICT
+            }
+        }
+    }
+
+    private static void skipExpression(SqlLexer lexer) {
+        // The first operand may itself be a keyword: DEFAULT NULL, DEFAULT CURRENT_TIMESTAMP
+        do {
+            if (lexer.type() == TokenType.LEFT_PAREN) {
+                lexer.skipGroup();
+            } else {
+                lexer.next();
+            }
+        } while (!isElementEnd(lexer)
+                && !lexer.isAny("CONSTRAINT", "NOT", "NULL", "PRIMARY", "UNIQUE", "REFERENCES", "CHECK", "DEFAULT", "GENERATED", "COLLATE"));
+    }
+
+    private static boolean isElementEnd(SqlLexer lexer) {
+        TokenType type = lexer.type();
+        return type == TokenType.COMMA || type == TokenType.RIGHT_PAREN || type == TokenType.EOF || type == TokenType.SEMICOLON;
+    }
+
+    private static void skipToElementEnd(SqlLexer lexer) {
+        while (!isElementEnd(lexer)) {
+            if (lexer.type() == TokenType.LEFT_PAREN) {
+                lexer.skipGroup();
+            } else {
+                lexer.next();
+            }
+        }
+    }
+
+    private static void applyAlterTable(SqlLexer lexer, Map<String, Table> tables) {
+        // ALTER TABLE [ IF EXISTS ] [ ONLY ] name [ * ] action [, ...]
+        if (!lexer.accept("TABLE")) {
+            return;
+        }
+        if (lexer.accept("IF")) {
+            lexer.accept("EXISTS");
+        }
+        lexer.accept("ONLY");
+
+        String tableName = parseQualifiedName(lexer);
+        Table table = tables.get(tableName);
+        if (table == null) {
+            return;
+        }
+        if (lexer.type() == TokenType.SYMBOL && lexer.text().equals("*")) {
+            lexer.next();
+        }
+
+        List<Column> columns = new ArrayList<>(table.getColumns());
+        while (lexer.type() != TokenType.EOF) {
+            if (lexer.accept("ADD")) {
+                List<String> primaryKey = new ArrayList<>();
+                List<String[]> foreignKeys = new ArrayList<>();
+                List<Index> indexes = new ArrayList<>();
+
+                if (lexer.accept("CONSTRAINT")) {
+                    String constraintName = lexer.identifier();
+                    lexer.next();
+                    parseTableConstraint(lexer, constraintName, primaryKey, foreignKeys, indexes);
+                } else if (lexer.isAny("PRIMARY", "FOREIGN", "UNIQUE", "CHECK", "EXCLUDE")) {
+                    parseTableConstraint(lexer, null, primaryKey, foreignKeys, indexes);
+                } else {
+                    // ADD [ COLUMN ] [ IF NOT EXISTS ] column_definition
+                    lexer.accept("COLUMN");
+                    if (lexer.accept("IF")) {
+                        lexer.accept("NOT");
+                        lexer.accept("EXISTS");
+                    }
+                    Column column = parseColumnDefinition(lexer, indexes);
+                    if (column != null) {
+                        columns.add(column);
+                    }
+                }
+
+                markPrimaryKey(columns, primaryKey);
+                for (String[] foreignKey : foreignKeys) {
+                    markForeignKey(columns, foreignKey[0], foreignKey[1], foreignKey[2]);
+                }
+                table = table.withColumns(columns).withIndexes(indexes);
+                tables.put(tableName, table);
+            }
+
+            skipToElementEnd(lexer);
+            lexer.next();
+        }
+    }
+
+    /**
+     * CREATE [ UNIQUE ] INDEX [ CONCURRENTLY ] [ [ IF NOT EXISTS ] name ] ON [ ONLY ] table [ USING method ]
+     * ( element [, ...] ) [ INCLUDE (...) ] [ NULLS [ NOT ] DISTINCT ] [ WITH (...) ] [ TABLESPACE name ] [ WHERE predicate ]
+     */
+    private static void parseCreateIndex(SqlLexer lexer, Map<String, Table> tables) {
+        boolean unique = lexer.accept("UNIQUE");
+        if (!lexer.accept("INDEX")) {
+            return;
+        }
+        lexer.accept("CONCURRENTLY");
+        if (lexer.accept("IF")) {
+            lexer.accept("NOT");
+            lexer.accept("EXISTS");
+        }
+
+        String indexName = lexer.is("ON") ? null : parseQualifiedName(lexer);
+        if (!lexer.accept("ON")) {
+            return;
+        }
+        lexer.accept("ONLY");
+
+        String tableName = parseQualifiedName(lexer);
+        Table table = tables.get(tableName);
+        if (table == null) {
+            return;
+        }
+
+        String method = "btree";
+        if (lexer.accept("USING")) {
+            method = lexer.identifier();
+            lexer.next();
+        }
+        if (!lexer.accept(TokenType.LEFT_PAREN)) {
+            return;
+        }
+
+        // Plain columns are kept up to the first expression: lower(email), (a + b)
+        List<String> indexColumns = new ArrayList<>();
+        boolean plainColumns = true;
+        while (lexer.type() != TokenType.RIGHT_PAREN && lexer.type() != TokenType.EOF) {
+            if (plainColumns && lexer.isIdentifier()) {
+                String columnName = lexer.identifier();
+                lexer.next();
+                if (lexer.type() == TokenType.LEFT_PAREN) {
+                    plainColumns = false;
+                } else {
+                    indexColumns.add(columnName);
+                }
+            } else {
+                plainColumns = false;
+            }
+
+            // Collation, operator class, ASC | DESC, NULLS FIRST | LAST
+            skipToElementEnd(lexer);
+            lexer.accept(TokenType.COMMA);
+        }
+        lexer.accept(TokenType.RIGHT_PAREN);
+
+        boolean partial = false;
+        while (lexer.type() != TokenType.EOF) {
+            if (lexer.type() == TokenType.LEFT_PAREN) {
+                lexer.skipGroup();
+            } else if (lexer.accept("WHERE")) {
+                partial = true;
+                break;
+            } else {
+                lexer.next();
+            }
+        }
+
+        // Uniqueness over expressions says nothing about the plain columns that were kept
+        tables.put(tableName, table.withIndexes(List.of(new Index(indexName, indexColumns, unique && plainColumns, false, method, partial, !plainColumns))));
+    }
+
+    private static void markPrimaryKey(List<Column> columns, List<String> primaryKey) {
+        // Composite keys are left alone: their columns must stay fillable
+        if (primaryKey.size() != 1) {
+            return;
+        }
+
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if (column.getName().equals(primaryKey.get(0))) {
+                columns.set(i, column.withPrimaryKey());
+                return;
+            }
+        }
+    }
+
+    private static void markForeignKey(List<Column> columns, String columnName, String targetTable, String targetColumn) {
+        // Update the corresponding column
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if (column.getName().equals(columnName)) {
+                columns.set(i, column.withForeignKey(targetTable, targetColumn));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package mg.itu.parser;
+
+import java.util.Locale;
+
+/**
+ * Single-pass tokenizer for PostgreSQL DDL.
+ *
+ * Tokens are not materialized: the lexer only keeps the type and bounds of the current token,
+ * so keyword checks compare characters in place and strings are only allocated when the parser
+ * actually needs an identifier or literal value.
+ */
+public class SqlLexer {
+
+    public enum TokenType {
+        WORD,
+        QUOTED_IDENTIFIER,
+        STRING,
+        NUMBER,
+        LEFT_PAREN,
+        RIGHT_PAREN,
+        COMMA,
+        DOT,
+        SEMICOLON,
+        SYMBOL,
+        EOF
+    }
+
+    private final CharSequence input;
+    private final int length;
+    private int position;
+
+    private TokenType type;
+    private int start;
+    private int end;
+
+    public SqlLexer(CharSequence input) {
+        this.input = input;
+        this.length = input.length();
+        next();
+    }
+
+    public TokenType type() {
+        return type;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Advances to the next token and returns its type.
+     */
+    public TokenType next() {
+        skipWhitespaceAndComments();
+        start = position;
+
+        if (position >= length) {
+            end = position;
+            return type = TokenType.EOF;
+        }
+
+        char c = input.charAt(position);
+
+        if ((c == 'E' || c == 'e') && position + 1 < length && input.charAt(position + 1) == '\'') {
+            position++;
+            scanQuoted('\'', true);
+            type = TokenType.STRING;
+        } else if (isIdentifierStart(c)) {
+            position++;
+            while (position < length && isIdentifierPart(input.charAt(position))) position++;
+            type = TokenType.WORD;
+        } else if (c == '"') {
+            scanQuoted('"', false);
+            type = TokenType.QUOTED_IDENTIFIER;
+        } else if (c == '\'') {
+            scanQuoted('\'', false);
+            type = TokenType.STRING;
+        } else if (c == '$' && scanDollarQuoted()) {
+            type = TokenType.STRING;
+        } else if (isDigit(c) || (c == '.' && position + 1 < length && isDigit(input.charAt(position + 1)))) {
+            scanNumber();
+            type = TokenType.NUMBER;
+        } else {
+            position++;
+            switch (c) {
+                case '(': type = TokenType.LEFT_PAREN; break;
+                case ')': type = TokenType.RIGHT_PAREN; break;
+                case ',': type = TokenType.COMMA; break;
+                case '.': type = TokenType.DOT; break;
+                case ';': type = TokenType.SEMICOLON; break;
+                default:
+                    // Casts (::) are the only multi-character operator the parser cares about
+                    if (c == ':' && position < length && input.charAt(position) == ':') position++;
+                    type = TokenType.SYMBOL;
+            }
+        }
+
+        end = position;
+        return type;
+    }
+
+    /**
+     * Returns true if the current token is the given keyword. The keyword must be upper case.
+     */
+    public boolean is(String keyword) {
+        if (type != TokenType.WORD || end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(input.charAt(start + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the current token is any of the given keywords.
+     */
+    public boolean isAny(String... keywords) {
+        for (String keyword : keywords) {
+            if (is(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the current token if it is the given keyword.
+     */
+    public boolean accept(String keyword) {
+        if (is(keyword)) {
+            next();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consumes the current token if it has the given type.
+     */
+    public boolean accept(TokenType expected) {
+        if (type == expected) {
+            next();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the current token can name a table or column.
+     */
+    public boolean isIdentifier() {
+        return type == TokenType.WORD || type == TokenType.QUOTED_IDENTIFIER;
+    }
+
+    /**
+     * Returns the current identifier as PostgreSQL resolves it: unquoted names are folded
+     * to lower case, quoted names keep their case and lose their quotes.
+     */
+    public String identifier() {
+        if (type == TokenType.QUOTED_IDENTIFIER) {
+            return unquote('"');
+        }
+        return input.subSequence(start, end).toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the raw source text of the current token.
+     */
+    public String text() {
+        return input.subSequence(start, end).toString();
+    }
+
+    /**
+     * Returns the source text between two offsets, for example a whole default expression.
+     */
+    public String text(int from, int to) {
+        return input.subSequence(from, to).toString();
+    }
+
+    /**
+     * Skips a parenthesized group, the current token being its opening parenthesis.
+     */
+    public void skipGroup() {
+        int depth = 0;
+        do {
+            if (type == TokenType.LEFT_PAREN) depth++;
+            else if (type == TokenType.RIGHT_PAREN) depth--;
+            next();
+        } while (depth > 0 && type != TokenType.EOF);
+    }
+
+    private String unquote(char quote) {
+        StringBuilder value = new StringBuilder(end - start);
+        for (int i = start + 1; i < end - 1; i++) {
+            char c = input.charAt(i);
+            value.append(c);
+            if (c == quote && i + 1 < end - 1 && input.charAt(i + 1) == quote) {
+                i++;
+            }
+        }
+        return value.toString();
+    }
+
+    private void scanQuoted(char quote, boolean backslashEscapes) {
+        position++;
+        while (position < length) {
+            char c = input.charAt(position++);
+            if (backslashEscapes && c == '\\') {
+                position++;
+            } else if (c == quote) {
+                if (position < length && input.charAt(position) == quote) {
+                    position++;
+                } else {
+                    return;
+                }
+            }
+        }
+        position = Math.min(position, length);
+    }
+
+    private boolean scanDollarQuoted() {
+        int tagEnd = position + 1;
+        if (tagEnd < length && isIdentifierStart(input.charAt(tagEnd))) {
+            while (tagEnd < length && isIdentifierPart(input.charAt(tagEnd)) && input.charAt(tagEnd) != '$') tagEnd++;
+        }
+        if (tagEnd >= length || input.charAt(tagEnd) != '$') {
+            return false;
+        }
+
+        int tagLength = tagEnd + 1 - position;
+        int bodyStart = tagEnd + 1;
+        for (int i = bodyStart; i + tagLength <= length; i++) {
+            if (input.charAt(i) == '$' && regionEquals(i, position, tagLength)) {
+                position = i + tagLength;
+                return true;
+            }
+        }
+        position = length;
+        return true;
+    }
+
+    private boolean regionEquals(int offset, int other, int count) {
+        for (int i = 0; i < count; i++) {
+            if (input.charAt(offset + i) != input.charAt(other + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void scanNumber() {
+        while (position < length && (isDigit(input.charAt(position)) || input.charAt(position) == '.')) position++;
+        if (position < length && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+            int exponent = position + 1;
+            if (exponent < length && (input.charAt(exponent) == '+' || input.charAt(exponent) == '-')) exponent++;
+            if (exponent < length && isDigit(input.charAt(exponent))) {
+                position = exponent;
+                while (position < length && isDigit(input.charAt(position))) position++;
+            }
+        }
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (position < length) {
+            char c = input.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '-' && position + 1 < length && input.charAt(position + 1) == '-') {
+                while (position < length && input.charAt(position) != '\n') position++;
+            } else if (c == '/' && position + 1 < length && input.charAt(position + 1) == '*') {
+                skipBlockComment();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipBlockComment() {
+        // PostgreSQL block comments nest
+        int depth = 0;
+        while (position < length) {
+            if (input.charAt(position) == '/' && position + 1 < length && input.charAt(position + 1) == '*') {
+                depth++;
+                position += 2;
+            } else if (input.charAt(position) == '*' && position + 1 < length && input.charAt(position + 1) == '/') {
+                depth--;
+                position += 2;
+                if (depth == 0) return;
+            } else {
+                position++;
+            }
+        }
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
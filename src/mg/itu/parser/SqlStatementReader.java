@@ -0,0 +1,275 @@
+package mg.itu.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a PostgreSQL script (typically a {@code pg_dump --schema-only} file) into statements
+ * in a single pass over a {@link Reader}.
+ *
+ * Only the statements the schema parser cares about ({@code CREATE TABLE}, {@code ALTER TABLE} and {@code CREATE INDEX})
+ * are buffered and returned; everything else (functions, views, grants, comments, dollar-quoted
+ * bodies, psql meta-commands) is skipped on the fly, so the dump is never held in memory as a whole.
+ */
+public class SqlStatementReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Outcome of looking at the leading keywords of a statement
+    private static final int UNDECIDED = 0;
+    private static final int CAPTURE = 1;
+    private static final int SKIP = 2;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int pushback = -1;
+
+    private final StringBuilder statement = new StringBuilder(1024);
+
+    public SqlStatementReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next captured statement without its trailing semicolon, or {@code null} at end of input.
+     * Comments inside a captured statement are replaced by a single space.
+     */
+    public String next() throws IOException {
+        while (true) {
+            int c = skipWhitespaceAndComments();
+            if (c == -1) {
+                return null;
+            }
+
+            if (c == '\\') {
+                // psql meta-command (\connect, \restrict, ...): runs to the end of the line
+                skipLine();
+                continue;
+            }
+
+            statement.setLength(0);
+            int decision = UNDECIDED;
+            boolean ended = false;
+            int last = ' ';
+
+            while (c != -1) {
+                if (c == ';') {
+                    ended = true;
+                    break;
+                }
+
+                if (decision == UNDECIDED && !isWordChar(c) && statement.length() > 0) {
+                    decision = classify(statement);
+                }
+                boolean capture = decision != SKIP;
+
+                if (c == '\'') {
+                    readQuoted('\'', capture, last == 'E' || last == 'e');
+                } else if (c == '"') {
+                    readQuoted('"', capture, false);
+                } else if (c == '$' && !isWordChar(last)) {
+                    readPossibleDollarQuote(capture);
+                } else if (c == '-' && peek() == '-') {
+                    skipLine();
+                    if (capture) statement.append(' ');
+                } else if (c == '/' && peek() == '*') {
+                    read();
+                    skipBlockComment();
+                    if (capture) statement.append(' ');
+                } else if (capture) {
+                    statement.append((char) c);
+                } else if (decision == SKIP) {
+                    // Keep the buffer small while skipping; only quoting context matters from here on
+                    statement.setLength(0);
+                }
+
+                last = c;
+                c = read();
+            }
+
+            if (decision == UNDECIDED && statement.length() > 0) {
+                decision = classify(statement);
+            }
+
+            if (decision == CAPTURE) {
+                return statement.toString().trim();
+            }
+
+            if (!ended) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int classify(CharSequence text) {
+        SqlLexer lexer = new SqlLexer(text);
+        if (lexer.type() != SqlLexer.TokenType.WORD) {
+            // Statement does not start with a keyword
+            return SKIP;
+        }
+
+        if (lexer.accept("ALTER")) {
+            if (lexer.type() == SqlLexer.TokenType.EOF) return UNDECIDED;
+            return lexer.is("TABLE") ? CAPTURE : SKIP;
+        }
+
+        if (!lexer.accept("CREATE")) {
+            return SKIP;
+        }
+
+        // CREATE [ UNIQUE ] INDEX
+        if (lexer.accept("UNIQUE")) {
+            if (lexer.type() == SqlLexer.TokenType.EOF) return UNDECIDED;
+            return lexer.is("INDEX") ? CAPTURE : SKIP;
+        }
+        if (lexer.is("INDEX")) {
+            return CAPTURE;
+        }
+
+        // CREATE [ GLOBAL | LOCAL ] [ TEMP | TEMPORARY | UNLOGGED ] TABLE
+        while (lexer.isAny("GLOBAL", "LOCAL", "TEMP", "TEMPORARY", "UNLOGGED")) {
+            lexer.next();
+        }
+        if (lexer.type() == SqlLexer.TokenType.EOF) return UNDECIDED;
+        return lexer.is("TABLE") ? CAPTURE : SKIP;
+    }
+
+    private void readQuoted(char quote, boolean capture, boolean backslashEscapes) throws IOException {
+        if (capture) statement.append(quote);
+        int c;
+        while ((c = read()) != -1) {
+            if (capture) statement.append((char) c);
+            if (backslashEscapes && c == '\\') {
+                int escaped = read();
+                if (escaped == -1) return;
+                if (capture) statement.append((char) escaped);
+            } else if (c == quote) {
+                if (peek() == quote) {
+                    // Doubled quote is an escaped quote, not the end of the literal
+                    read();
+                    if (capture) statement.append(quote);
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void readPossibleDollarQuote(boolean capture) throws IOException {
+        StringBuilder tag = new StringBuilder();
+        tag.append('$');
+
+        int c = read();
+        if (c != -1 && (Character.isLetter(c) || c == '_')) {
+            while (c != -1 && isWordChar(c) && c != '$') {
+                tag.append((char) c);
+                c = read();
+            }
+        }
+
+        if (c != '$') {
+            // Not a dollar quote ($1 parameter, stray $): keep what was read and let the caller see c
+            if (capture) statement.append(tag);
+            unread(c);
+            return;
+        }
+        tag.append('$');
+
+        if (capture) statement.append(tag);
+        int matched = 0;
+        while ((c = read()) != -1) {
+            if (capture) statement.append((char) c);
+            if (c == tag.charAt(matched)) {
+                matched++;
+                if (matched == tag.length()) {
+                    return;
+                }
+            } else {
+                matched = c == '$' ? 1 : 0;
+            }
+        }
+    }
+
+    private void skipBlockComment() throws IOException {
+        // PostgreSQL block comments nest
+        int depth = 1;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '*' && peek() == '/') {
+                read();
+                if (--depth == 0) return;
+            } else if (c == '/' && peek() == '*') {
+                read();
+                depth++;
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // skip
+        }
+    }
+
+    private int skipWhitespaceAndComments() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return -1;
+            }
+            if (Character.isWhitespace(c) || c == ';') {
+                continue;
+            }
+            if (c == '-' && peek() == '-') {
+                skipLine();
+            } else if (c == '/' && peek() == '*') {
+                read();
+                skipBlockComment();
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private static boolean isWordChar(int c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private int read() throws IOException {
+        if (pushback != -1) {
+            int c = pushback;
+            pushback = -1;
+            return c;
+        }
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        int c = read();
+        unread(c);
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c != -1) {
+            pushback = c;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package mg.itu.template;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A node of a compiled template. Nodes are immutable and shared between threads;
+ * all per-render state lives in the {@link Scope}.
+ */
+abstract class Node {
+
+    abstract void render(Scope scope, StringBuilder out);
+
+    /**
+     * Estimated number of characters the node renders, used to pre-size the output buffer.
+     */
+    int sizeEstimate() {
+        return 16;
+    }
+
+    static void renderAll(Node[] nodes, Scope scope, StringBuilder out) {
+        for (Node node : nodes) {
+            node.render(scope, out);
+        }
+    }
+
+    static int sizeEstimate(Node[] nodes) {
+        int size = 0;
+        for (Node node : nodes) {
+            size += node.sizeEstimate();
+        }
+        return size;
+    }
+
+    static boolean isTruthy(Object value) {
+        if (value == null) return false;
+        if (value instanceof Boolean) return (Boolean) value;
+        if (value instanceof Collection) return !((Collection<?>) value).isEmpty();
+        if (value instanceof CharSequence) return ((CharSequence) value).length() > 0;
+        return true;
+    }
+
+    /**
+     * Literal text, copied as is.
+     */
+    static final class Text extends Node {
+        private final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void render(Scope scope, StringBuilder out) {
+            out.append(text);
+        }
+
+        @Override
+        int sizeEstimate() {
+            return text.length();
+        }
+    }
+
+    /**
+     * {{name}} or {{item.name}}: the value of a variable, empty if it is not defined.
+     */
+    static final class Variable extends Node {
+        private final String[] path;
+
+        Variable(String[] path) {
+            this.path = path;
+        }
+
+        @Override
+        void render(Scope scope, StringBuilder out) {
+            Object value = scope.resolve(path);
+            if (value != null) {
+                out.append(value);
+            }
+        }
+    }
+
+    /**
+     * {{#if name}} ... {{else}} ... {{/if}}, and its negation {{#unless name}}.
+     */
+    static final class Conditional extends Node {
+        private final String[] path;
+        private final boolean negated;
+        private final Node[] whenTrue;
+        private final Node[] whenFalse;
+
+        Conditional(String[] path, boolean negated, Node[] whenTrue, Node[] whenFalse) {
+            this.path = path;
+            this.negated = negated;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        void render(Scope scope, StringBuilder out) {
+            boolean condition = isTruthy(scope.resolve(path)) != negated;
+            renderAll(condition ? whenTrue : whenFalse, scope, out);
+        }
+
+        @Override
+        int sizeEstimate() {
+            return Math.max(sizeEstimate(whenTrue), sizeEstimate(whenFalse));
+        }
+    }
+
+    /**
+     * {{#each items}} ... {{else}} ... {{/each}}: renders the body once per element,
+     * with the element's entries in scope; the else branch renders when there are none.
+     */
+    static final class Each extends Node {
+        private final String[] path;
+        private final Node[] body;
+        private final Node[] whenEmpty;
+
+        Each(String[] path, Node[] body, Node[] whenEmpty) {
+            this.path = path;
+            this.body = body;
+            this.whenEmpty = whenEmpty;
+        }
+
+        @Override
+        void render(Scope scope, StringBuilder out) {
+            Object value = scope.resolve(path);
+            if (!(value instanceof Collection) || ((Collection<?>) value).isEmpty()) {
+                renderAll(whenEmpty, scope, out);
+                return;
+            }
+
+            Collection<?> items = (Collection<?>) value;
+            int index = 0;
+            for (Iterator<?> iterator = items.iterator(); iterator.hasNext(); index++) {
+                Scope itemScope = new Scope(iterator.next(), scope, index, !iterator.hasNext());
+                renderAll(body, itemScope, out);
+            }
+        }
+
+        @Override
+        int sizeEstimate() {
+            // Assume a handful of elements
+            return sizeEstimate(body) * 4;
+        }
+    }
+
+    /**
+     * Lookup chain of the values visible while rendering: the root context, then one
+     * level per enclosing {{#each}}.
+     */
+    static final class Scope {
+        private final Object value;
+        private final Scope parent;
+        private final int index;
+        private final boolean last;
+
+        Scope(Object value, Scope parent, int index, boolean last) {
+            this.value = value;
+            this.parent = parent;
+            this.index = index;
+            this.last = last;
+        }
+
+        Object resolve(String[] path) {
+            Object current = resolveFirst(path[0]);
+            for (int i = 1; i < path.length && current != null; i++) {
+                current = current instanceof Map ? ((Map<?, ?>) current).get(path[i]) : null;
+            }
+            return current;
+        }
+
+        private Object resolveFirst(String name) {
+            switch (name) {
+                case ".":
+                    return value;
+                case "@index":
+                    return index;
+                case "@first":
+                    return index == 0;
+                case "@last":
+                    return last;
+                default:
+                    for (Scope scope = this; scope != null; scope = scope.parent) {
+                        if (scope.value instanceof Map) {
+                            Map<?, ?> map = (Map<?, ?>) scope.value;
+                            Object found = map.get(name);
+                            if (found != null || map.containsKey(name)) {
+                                return found;
+                            }
+                        }
+                    }
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package mg.itu.template;
+
+import java.util.Map;
+
+/**
+ * A compiled template: an immutable node tree that can be rendered concurrently from many threads.
+ *
+ * Rendering goes into a per-thread buffer that is reused across calls and pre-sized from the
+ * largest output the template produced so far, so bulk generation does not regrow a fresh
+ * StringBuilder for every file.
+ */
+public class Template {
+
+    // Buffers that grew past this size are dropped after use instead of being kept per thread
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private final String name;
+    private final String source;
+    private final Node[] nodes;
+    private volatile int sizeHint;
+
+    Template(String name, String source, Node[] nodes) {
+        this.name = name;
+        this.source = source;
+        this.nodes = nodes;
+        this.sizeHint = Node.sizeEstimate(nodes);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The text the template was compiled from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Renders the template. Names used by the template are looked up in the context map;
+     * inside {{#each}} blocks, the entries of the current element take precedence.
+     */
+    public String render(Map<String, ?> context) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        out.ensureCapacity(sizeHint);
+
+        Node.renderAll(nodes, new Node.Scope(context, null, 0, true), out);
+
+        if (out.length() > sizeHint) {
+            sizeHint = out.length();
+        }
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+}
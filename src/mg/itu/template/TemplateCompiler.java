@@ -0,0 +1,167 @@
+package mg.itu.template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles template text into a {@link Template}.
+ *
+ * The syntax is a small subset of Mustache/Handlebars:
+ * <ul>
+ *   <li>{{name}}, {{item.name}}: a variable; {{.}} is the current element of an {{#each}}</li>
+ *   <li>{{#if name}} ... {{else}} ... {{/if}} and {{#unless name}} ... {{/unless}}</li>
+ *   <li>{{#each items}} ... {{else}} ... {{/each}}, with {{@index}}, {{@first}} and {{@last}}</li>
+ *   <li>{{! comment}}</li>
+ * </ul>
+ * A block tag or comment alone on its line removes the whole line, so templates can be
+ * indented like the code they generate.
+ */
+public class TemplateCompiler {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final String name;
+    private final String source;
+    private int position;
+
+    private TemplateCompiler(String name, String source) {
+        this.name = name;
+        this.source = source;
+    }
+
+    public static Template compile(String name, String source) {
+        TemplateCompiler compiler = new TemplateCompiler(name, source);
+        List<Node> nodes = new ArrayList<>();
+        String end = compiler.parseBlock(nodes, null);
+        if (end != null) {
+            throw compiler.error("unexpected {{" + end + "}}");
+        }
+        return new Template(name, source, nodes.toArray(new Node[0]));
+    }
+
+    /**
+     * Parses nodes until the end of the template or a closing/else tag, which is returned
+     * (null at the end of the template).
+     */
+    private String parseBlock(List<Node> nodes, String section) {
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            if (open == -1) {
+                nodes.add(new Node.Text(source.substring(position)));
+                position = source.length();
+                break;
+            }
+
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close == -1) {
+                position = open;
+                throw error("unclosed tag");
+            }
+
+            String tag = source.substring(open + OPEN.length(), close).trim();
+            int afterTag = close + CLOSE.length();
+            boolean block = isBlockTag(tag);
+
+            // A block tag alone on its line swallows the line's indentation and line break
+            int textEnd = open;
+            if (block) {
+                int lineStart = source.lastIndexOf('\n', open - 1) + 1;
+                int lineEnd = source.indexOf('\n', afterTag);
+                if (lineEnd == -1) lineEnd = source.length();
+                if (lineStart >= position && isBlank(lineStart, open) && isBlank(afterTag, lineEnd)) {
+                    textEnd = lineStart;
+                    afterTag = Math.min(lineEnd + 1, source.length());
+                }
+            }
+
+            if (textEnd > position) {
+                nodes.add(new Node.Text(source.substring(position, textEnd)));
+            }
+            position = afterTag;
+
+            if (tag.startsWith("!")) {
+                continue;
+            }
+
+            if (tag.equals("else") || tag.startsWith("/")) {
+                if (section == null) {
+                    throw error("unexpected {{" + tag + "}}");
+                }
+                if (tag.startsWith("/") && !tag.substring(1).equals(section)) {
+                    throw error("{{" + tag + "}} closes {{#" + section + "}}");
+                }
+                return tag;
+            }
+
+            if (tag.startsWith("#")) {
+                nodes.add(parseSection(tag));
+            } else if (tag.isEmpty()) {
+                throw error("empty tag");
+            } else {
+                nodes.add(new Node.Variable(path(tag)));
+            }
+        }
+
+        if (section != null) {
+            throw error("missing {{/" + section + "}}");
+        }
+        return null;
+    }
+
+    private Node parseSection(String tag) {
+        int space = tag.indexOf(' ');
+        if (space == -1) {
+            throw error("missing argument in {{" + tag + "}}");
+        }
+        String keyword = tag.substring(1, space);
+        String[] path = path(tag.substring(space + 1).trim());
+
+        if (!keyword.equals("if") && !keyword.equals("unless") && !keyword.equals("each")) {
+            throw error("unknown block {{#" + keyword + "}}");
+        }
+
+        List<Node> primary = new ArrayList<>();
+        List<Node> alternative = new ArrayList<>();
+        String end = parseBlock(primary, keyword);
+        if (end.equals("else")) {
+            end = parseBlock(alternative, keyword);
+            if (end.equals("else")) {
+                throw error("duplicate {{else}}");
+            }
+        }
+
+        Node[] primaryNodes = primary.toArray(new Node[0]);
+        Node[] alternativeNodes = alternative.toArray(new Node[0]);
+        if (keyword.equals("each")) {
+            return new Node.Each(path, primaryNodes, alternativeNodes);
+        }
+        return new Node.Conditional(path, keyword.equals("unless"), primaryNodes, alternativeNodes);
+    }
+
+    private static boolean isBlockTag(String tag) {
+        return tag.startsWith("#") || tag.startsWith("/") || tag.startsWith("!") || tag.equals("else");
+    }
+
+    private static String[] path(String expression) {
+        return expression.equals(".") ? new String[] { "." } : expression.split("\\.");
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = source.charAt(i);
+            if (c != ' ' && c != '\t' && c != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private IllegalArgumentException error(String message) {
+        int line = 1;
+        for (int i = 0; i < position && i < source.length(); i++) {
+            if (source.charAt(i) == '\n') line++;
+        }
+        return new IllegalArgumentException("Invalid template '" + name + "' at line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,85 @@
+package mg.itu.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads and caches compiled templates.
+ *
+ * A template named {@code model} is read from {@code model.tpl} in the override directory when
+ * that file exists, and from the built-in defaults bundled with the generator otherwise. Each
+ * template is compiled once per engine and then shared.
+ */
+public class TemplateEngine {
+
+    public static final String EXTENSION = ".tpl";
+
+    private static final String DEFAULTS = "defaults/";
+
+    private static final TemplateEngine DEFAULT_ENGINE = new TemplateEngine(null);
+
+    private final Path overrideDirectory;
+    private final Map<String, Template> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param overrideDirectory directory searched before the built-in templates, or null
+     */
+    public TemplateEngine(Path overrideDirectory) {
+        this.overrideDirectory = overrideDirectory;
+    }
+
+    /**
+     * Returns the shared engine serving the built-in templates only.
+     */
+    public static TemplateEngine getDefault() {
+        return DEFAULT_ENGINE;
+    }
+
+    public Path getOverrideDirectory() {
+        return overrideDirectory;
+    }
+
+    public Template getTemplate(String name) throws IOException {
+        try {
+            return cache.computeIfAbsent(name, key -> {
+                try {
+                    return TemplateCompiler.compile(key, loadSource(key));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String loadSource(String name) throws IOException {
+        if (overrideDirectory != null) {
+            Path file = overrideDirectory.resolve(name + EXTENSION);
+            if (Files.isRegularFile(file)) {
+                return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            }
+        }
+
+        try (InputStream in = TemplateEngine.class.getResourceAsStream(DEFAULTS + name + EXTENSION)) {
+            if (in == null) {
+                throw new IOException("Template not found: " + name);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
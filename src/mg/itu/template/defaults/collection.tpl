@@ -0,0 +1,18 @@
+<?php
+
+namespace App\Http\Resources;
+
+use Illuminate\Http\Resources\Json\ResourceCollection;
+
+/**
+ * A list of {{variableName}}s, each one rendered by {{resourceName}}.
+ */
+class {{collectionName}} extends ResourceCollection
+{
+    /**
+     * The resource that this resource collects.
+     *
+     * @var string
+     */
+    public $collects = {{resourceName}}::class;
+}
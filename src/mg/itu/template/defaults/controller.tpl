@@ -0,0 +1,659 @@
+<?php
+
+namespace App\Http\Controllers;
+
+use App\Http\Resources\{{collectionName}};
+use App\Http\Resources\{{resourceName}};
+use App\Models\{{modelName}};
+use App\Services\{{serviceName}};
+{{#if bulk}}
+use Illuminate\Database\Eloquent\ModelNotFoundException;
+{{/if}}
+use Illuminate\Http\Request;
+use Illuminate\Http\JsonResponse;
+use Illuminate\Validation\ValidationException;
+{{#if export}}
+use Symfony\Component\HttpFoundation\StreamedResponse;
+{{/if}}
+
+class {{controllerName}} extends Controller
+{
+    protected ${{serviceVariable}};
+
+    public function __construct({{serviceName}} ${{serviceVariable}})
+    {
+        $this->{{serviceVariable}} = ${{serviceVariable}};
+    }
+
+{{#if offsetPagination}}
+    /**
+     * Display a page of {{variableName}}s (?page=&per_page=).
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function index(Request $request): JsonResponse
+    {
+        try {
+            $options = $this->listOptions($request);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        }
+
+{{#if conditional}}
+        // The validators do not cover related rows, so a listing including them is always sent in full
+        $etag = $lastModified = null;
+        if (!$options['include'] && !$options['count']) {
+            [$count, $lastModified, $version] = $this->{{serviceVariable}}->listVersion($options['filter']);
+            $etag = md5($count . ':' . $version . ':' . $lastModified?->format('Y-m-d H:i:s.u') . ':' . $request->getQueryString());
+            if ($notModified = $this->notModified($request, $etag, $lastModified)) {
+                return $notModified;
+            }
+        }
+
+{{/if}}
+        ${{tableName}} = $this->{{serviceVariable}}->paginate($this->perPage($request), $options);
+        return response()->json([
+            'status' => 'success',
+            'message' => '{{modelName}} page retrieved successfully',
+            'data' => new {{collectionName}}(${{tableName}}->items()),
+            'meta' => [
+                'current_page' => ${{tableName}}->currentPage(),
+                'per_page' => ${{tableName}}->perPage(),
+                'last_page' => ${{tableName}}->lastPage(),
+                'total' => ${{tableName}}->total()
+            ]
+        ]){{#if conditional}}->setEtag($etag, true)->setLastModified($lastModified){{/if}};
+    }
+{{/if}}
+{{#if cursorPagination}}
+    /**
+     * Display a page of {{variableName}}s (?cursor=&per_page=), the cursor coming from the previous page.
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function index(Request $request): JsonResponse
+    {
+        try {
+            $options = $this->listOptions($request);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        }
+
+{{#if conditional}}
+        // The validators do not cover related rows, so a listing including them is always sent in full
+        $etag = $lastModified = null;
+        if (!$options['include'] && !$options['count']) {
+            [$count, $lastModified, $version] = $this->{{serviceVariable}}->listVersion($options['filter']);
+            $etag = md5($count . ':' . $version . ':' . $lastModified?->format('Y-m-d H:i:s.u') . ':' . $request->getQueryString());
+            if ($notModified = $this->notModified($request, $etag, $lastModified)) {
+                return $notModified;
+            }
+        }
+
+{{/if}}
+        ${{tableName}} = $this->{{serviceVariable}}->cursorPaginate($this->perPage($request), $options);
+        return response()->json([
+            'status' => 'success',
+            'message' => '{{modelName}} page retrieved successfully',
+            'data' => new {{collectionName}}(${{tableName}}->items()),
+            'meta' => [
+                'per_page' => ${{tableName}}->perPage(),
+                'next_cursor' => ${{tableName}}->nextCursor()?->encode(),
+                'prev_cursor' => ${{tableName}}->previousCursor()?->encode()
+            ]
+        ]){{#if conditional}}->setEtag($etag, true)->setLastModified($lastModified){{/if}};
+    }
+{{/if}}
+{{#unless paginated}}
+    /**
+     * Display a listing of {{variableName}}s.
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function index(Request $request): JsonResponse
+    {
+        try {
+            $options = $this->listOptions($request);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        }
+
+{{#if conditional}}
+        // The validators do not cover related rows, so a listing including them is always sent in full
+        $etag = $lastModified = null;
+        if (!$options['include'] && !$options['count']) {
+            [$count, $lastModified, $version] = $this->{{serviceVariable}}->listVersion($options['filter']);
+            $etag = md5($count . ':' . $version . ':' . $lastModified?->format('Y-m-d H:i:s.u') . ':' . $request->getQueryString());
+            if ($notModified = $this->notModified($request, $etag, $lastModified)) {
+                return $notModified;
+            }
+        }
+
+{{/if}}
+        ${{tableName}} = $this->{{serviceVariable}}->getAll($options);
+        return response()->json([
+            'status' => 'success',
+            'message' => 'All {{variableName}}s retrieved successfully',
+            'data' => new {{collectionName}}(${{tableName}})
+        ]){{#if conditional}}->setEtag($etag, true)->setLastModified($lastModified){{/if}};
+    }
+{{/unless}}
+
+{{#if export}}
+    /**
+     * Stream every {{variableName}} as NDJSON, or as a single JSON array with ?format=json.
+     * Rows are encoded and flushed as they are read instead of being collected first.
+     *
+     * @param Request $request
+     * @return StreamedResponse
+     */
+    public function export(Request $request): StreamedResponse
+    {
+        $asArray = $request->query('format') === 'json';
+
+        return response()->stream(function () use ($asArray, $request) {
+            $count = 0;
+            if ($asArray) {
+                echo '[';
+            }
+            foreach ($this->{{serviceVariable}}->lazyAll() as ${{variableName}}) {
+                $json = json_encode((new {{resourceName}}(${{variableName}}))->resolve($request));
+                if ($asArray) {
+                    echo ($count > 0 ? ',' : '') . $json;
+                } else {
+                    echo $json . "\n";
+                }
+                if (++$count % {{exportChunkSize}} === 0) {
+                    if (ob_get_level() > 0) {
+                        ob_flush();
+                    }
+                    flush();
+                }
+            }
+            if ($asArray) {
+                echo ']';
+            }
+        }, 200, [
+            'Content-Type' => $asArray ? 'application/json' : 'application/x-ndjson',
+            'X-Accel-Buffering' => 'no'
+        ]);
+    }
+
+{{/if}}
+    /**
+     * Store a newly created {{variableName}}.
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function store(Request $request): JsonResponse
+    {
+        try {
+            $validated = $request->validate([
+{{#each storeRules}}
+                '{{name}}' => '{{rules}}',
+{{/each}}
+            ]);
+
+            ${{variableName}} = $this->{{serviceVariable}}->create($validated);
+            return response()->json([
+                'status' => 'success',
+                'message' => '{{modelName}} created successfully',
+                'data' => new {{resourceName}}(${{variableName}})
+            ], 201);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to create {{variableName}}',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+    /**
+     * Display the specified {{variableName}}.
+     *
+     * @param int $id
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function show(int $id, Request $request): JsonResponse
+    {
+        try {
+            $include = $this->includes($request);
+            $count = $this->counts($request);
+{{#if conditional}}
+            // Validators come from updated_at and xmin alone, so a 304 skips loading and encoding the row.
+            // They do not cover related rows, so a response including them is always sent in full.
+            [$lastModified, $version] = !$include && !$count ? $this->{{serviceVariable}}->version($id) : [null, null];
+            $etag = $lastModified ? md5($id . ':' . $version . ':' . $lastModified->format('Y-m-d H:i:s.u') . ':' . $request->getQueryString()) : null;
+            if ($etag && $notModified = $this->notModified($request, $etag, $lastModified)) {
+                return $notModified;
+            }
+
+{{/if}}
+            ${{variableName}} = $this->{{serviceVariable}}->findById($id, [
+                'include' => $include,
+                'fields' => $this->fields($request),
+                'count' => $count
+            ]);
+            
+            if (!${{variableName}}) {
+                return response()->json([
+                    'status' => 'error',
+                    'message' => '{{modelName}} not found'
+                ], 404);
+            }
+            
+            return response()->json([
+                'status' => 'success',
+                'message' => '{{modelName}} retrieved successfully',
+                'data' => new {{resourceName}}(${{variableName}})
+            ]){{#if conditional}}->setEtag($etag, true)->setLastModified($lastModified){{/if}};
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to retrieve {{variableName}}',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+    /**
+     * Update the specified {{variableName}}.
+     *
+     * @param Request $request
+     * @param int $id
+     * @return JsonResponse
+     */
+    public function update(Request $request, int $id): JsonResponse
+    {
+        try {
+            $validated = $request->validate([
+{{#each updateRules}}
+                '{{name}}' => '{{rules}}',
+{{/each}}
+            ]);
+
+            // The update itself tells whether the {{variableName}} exists, no lookup beforehand
+            $updated{{modelName}} = $this->{{serviceVariable}}->update($id, $validated);
+            if (!$updated{{modelName}}) {
+                return response()->json([
+                    'status' => 'error',
+                    'message' => '{{modelName}} not found'
+                ], 404);
+            }
+
+            return response()->json([
+                'status' => 'success',
+                'message' => '{{modelName}} updated successfully',
+                'data' => new {{resourceName}}($updated{{modelName}})
+            ]);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to update {{variableName}}',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+    /**
+     * Remove the specified {{variableName}}.
+     *
+     * @param int $id
+     * @return JsonResponse
+     */
+    public function destroy(int $id): JsonResponse
+    {
+        try {
+            if (!$this->{{serviceVariable}}->delete($id)) {
+                return response()->json([
+                    'status' => 'error',
+                    'message' => '{{modelName}} not found'
+                ], 404);
+            }
+
+            return response()->json([
+                'status' => 'success',
+                'message' => '{{modelName}} deleted successfully'
+            ], 200);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to delete {{variableName}}',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+{{#if bulk}}
+    /**
+     * Store many {{variableName}}s at once from {"rows": [...]}, each row validated like store().
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function bulkStore(Request $request): JsonResponse
+    {
+        try {
+            $validated = $request->validate([
+                'rows' => 'required|array|min:1',
+                'rows.*' => 'array',
+{{#each storeRules}}
+                'rows.*.{{name}}' => '{{rules}}',
+{{/each}}
+            ]);
+
+            $ids = $this->{{serviceVariable}}->bulkCreate($validated['rows']);
+            return response()->json([
+                'status' => 'success',
+                'message' => count($ids) . ' {{variableName}}s created successfully',
+                'data' => ['ids' => $ids]
+            ], 201);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to create {{variableName}}s',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+    /**
+     * Update many {{variableName}}s at once from {"rows": [{"{{primaryKey}}": ..., ...}, ...]}, each row
+     * validated like update(). Nothing is updated if one of the ids does not exist.
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function bulkUpdate(Request $request): JsonResponse
+    {
+        try {
+            $validated = $request->validate([
+                'rows' => 'required|array|min:1',
+                'rows.*' => 'array',
+                'rows.*.{{primaryKey}}' => 'required|integer|distinct',
+{{#each updateRules}}
+                'rows.*.{{name}}' => '{{rules}}',
+{{/each}}
+            ]);
+
+            $count = $this->{{serviceVariable}}->bulkUpdate($validated['rows']);
+            return response()->json([
+                'status' => 'success',
+                'message' => $count . ' {{variableName}}s updated successfully'
+            ]);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        } catch (ModelNotFoundException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => '{{modelName}} not found',
+                'ids' => $e->getIds()
+            ], 404);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to update {{variableName}}s',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+    /**
+     * Remove many {{variableName}}s at once from {"ids": [...]}. Nothing is removed if one of them
+     * does not exist.
+     *
+     * @param Request $request
+     * @return JsonResponse
+     */
+    public function bulkDestroy(Request $request): JsonResponse
+    {
+        try {
+            $validated = $request->validate([
+                'ids' => 'required|array|min:1',
+                'ids.*' => 'integer|distinct',
+            ]);
+
+            $count = $this->{{serviceVariable}}->bulkDelete($validated['ids']);
+            return response()->json([
+                'status' => 'success',
+                'message' => $count . ' {{variableName}}s deleted successfully'
+            ]);
+        } catch (ValidationException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Validation failed',
+                'errors' => $e->errors()
+            ], 422);
+        } catch (ModelNotFoundException $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => '{{modelName}} not found',
+                'ids' => $e->getIds()
+            ], 404);
+        } catch (\Exception $e) {
+            return response()->json([
+                'status' => 'error',
+                'message' => 'Failed to delete {{variableName}}s',
+                'error' => $e->getMessage()
+            ], 500);
+        }
+    }
+
+{{/if}}
+    /**
+     * Options of a listing: ?include=, ?fields=, ?count=, ?filter[column]= and ?sort=.
+     *
+     * @param Request $request
+     * @return array
+     * @throws ValidationException
+     */
+    private function listOptions(Request $request): array
+    {
+        return [
+            'include' => $this->includes($request),
+            'fields' => $this->fields($request),
+            'count' => $this->counts($request),
+            'filter' => $this->filters($request),
+            'sort' => $this->sorts($request)
+        ];
+    }
+
+    /**
+     * Relations requested with ?include=a,b, each checked against the service whitelist.
+     *
+     * @param Request $request
+     * @return array
+     * @throws ValidationException
+     */
+    private function includes(Request $request): array
+    {
+        return $this->listParameter($request, 'include', $this->{{serviceVariable}}->allowedIncludes());
+    }
+
+    /**
+     * Columns requested with ?fields=a,b, each checked against the table's columns.
+     *
+     * @param Request $request
+     * @return array
+     * @throws ValidationException
+     */
+    private function fields(Request $request): array
+    {
+        return $this->listParameter($request, 'fields', $this->{{serviceVariable}}->allowedFields());
+    }
+
+    /**
+     * Relations whose rows are counted with ?count=a,b, each checked against the service whitelist.
+     *
+     * @param Request $request
+     * @return array
+     * @throws ValidationException
+     */
+    private function counts(Request $request): array
+    {
+        return $this->listParameter($request, 'count', $this->{{serviceVariable}}->allowedCounts());
+    }
+
+    /**
+     * Equality filters requested with ?filter[column]=value, only on indexed columns.
+     *
+     * @param Request $request
+     * @return array column => value
+     * @throws ValidationException
+     */
+    private function filters(Request $request): array
+    {
+        $filters = $request->query('filter', []);
+        if (!is_array($filters)) {
+            throw ValidationException::withMessages([
+                'filter' => 'Filters are given as filter[column]=value'
+            ]);
+        }
+
+        $allowed = $this->{{serviceVariable}}->allowedFilters();
+        $unknown = array_diff(array_keys($filters), $allowed);
+        if ($unknown) {
+            throw ValidationException::withMessages([
+                'filter' => 'Cannot filter on ' . implode(', ', $unknown)
+                    . ': only indexed columns can be filtered (' . implode(', ', $allowed) . ')'
+            ]);
+        }
+        foreach ($filters as $column => $value) {
+            if (!is_scalar($value)) {
+                throw ValidationException::withMessages([
+                    'filter' => 'Filter on ' . $column . ' must be a single value'
+                ]);
+            }
+        }
+        return $filters;
+    }
+
+    /**
+     * Sort requested with ?sort=a,-b, descending when prefixed with a minus, only on indexed columns.
+     *
+     * @param Request $request
+     * @return array column => direction
+     * @throws ValidationException
+     */
+    private function sorts(Request $request): array
+    {
+        $sort = [];
+        foreach ($this->listParameter($request, 'sort', null) as $value) {
+            $column = ltrim($value, '-');
+            $sort[$column] = str_starts_with($value, '-') ? 'desc' : 'asc';
+        }
+
+        $allowed = $this->{{serviceVariable}}->allowedSorts();
+        $unknown = array_diff(array_keys($sort), $allowed);
+        if ($unknown) {
+            throw ValidationException::withMessages([
+                'sort' => 'Cannot sort on ' . implode(', ', $unknown)
+                    . ': without an index the whole table would be read and sorted. Sortable columns: '
+                    . implode(', ', $allowed)
+            ]);
+        }
+        return $sort;
+    }
+
+    /**
+     * Parse a comma separated query parameter, rejecting the values that are not allowed.
+     *
+     * @param Request $request
+     * @param string $name
+     * @param array|null $allowed null when the caller checks the values itself
+     * @return array
+     * @throws ValidationException
+     */
+    private function listParameter(Request $request, string $name, ?array $allowed): array
+    {
+        $values = array_values(array_unique(array_filter(array_map('trim', explode(',', (string) $request->query($name, ''))))));
+        if ($allowed === null) {
+            return $values;
+        }
+        $unknown = array_diff($values, $allowed);
+        if ($unknown) {
+            throw ValidationException::withMessages([
+                $name => 'Unknown ' . $name . ': ' . implode(', ', $unknown)
+            ]);
+        }
+        return $values;
+    }
+{{#if conditional}}
+
+    /**
+     * A 304 response when the client's If-None-Match or If-Modified-Since still match the
+     * validators, null when the full response has to be sent.
+     *
+     * @param Request $request
+     * @param string $etag
+     * @param \DateTimeInterface|null $lastModified
+     * @return JsonResponse|null
+     */
+    private function notModified(Request $request, string $etag, ?\DateTimeInterface $lastModified): ?JsonResponse
+    {
+        $response = new JsonResponse();
+        $response->setEtag($etag, true);
+        $response->setLastModified($lastModified);
+        return $response->isNotModified($request) ? $response : null;
+    }
+{{/if}}
+{{#if paginated}}
+
+    /**
+     * Page size asked by the client, kept between 1 and {{maxPageSize}} rows.
+     *
+     * @param Request $request
+     * @return int
+     */
+    private function perPage(Request $request): int
+    {
+        return min(max((int) $request->query('per_page', {{defaultPageSize}}), 1), {{maxPageSize}});
+    }
+{{/if}}
+}
@@ -0,0 +1,40 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+/**
+ * Foreign keys of the generated tables, added once every table exists so that the create
+ * migrations can run in any order. ON DELETE and ON UPDATE actions are not carried over.
+ */
+return new class extends Migration
+{
+    /**
+     * Run the migrations.
+     */
+    public function up(): void
+    {
+{{#each foreignKeyTables}}
+        Schema::table('{{tableName}}', function (Blueprint $table) {
+{{#each foreignKeys}}
+            $table->foreign('{{column}}')->references('{{referencesColumn}}')->on('{{referencesTable}}');
+{{/each}}
+        });
+{{/each}}
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+{{#each foreignKeyTables}}
+        Schema::table('{{tableName}}', function (Blueprint $table) {
+{{#each foreignKeys}}
+            $table->dropForeign(['{{column}}']);
+{{/each}}
+        });
+{{/each}}
+    }
+};
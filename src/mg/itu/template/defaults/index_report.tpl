@@ -0,0 +1,29 @@
+# Index report
+
+PostgreSQL does not index the referencing column of a foreign key. The generated migrations add an
+index on each foreign key column that no index of the schema leads, since the generated `include`
+eager loads and deletes on the referenced table look rows up by that column.
+
+## Added indexes
+
+{{#each addedIndexes}}
+{{#if @first}}
+| Table | Column | Index | Reason |
+|---|---|---|---|
+{{/if}}
+| {{tableName}} | {{column}} | {{name}} | {{reason}} |
+{{else}}
+Every foreign key column is already covered by an index.
+{{/each}}
+
+## Not recreated
+
+{{#each skippedIndexes}}
+{{#if @first}}
+| Table | Name | Reason |
+|---|---|---|
+{{/if}}
+| {{tableName}} | {{name}} | {{reason}} |
+{{else}}
+Every index and foreign key of the schema is recreated.
+{{/each}}
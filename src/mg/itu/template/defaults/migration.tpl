@@ -0,0 +1,51 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+{{#if migrationRawColumns}}
+use Illuminate\Support\Facades\DB;
+{{/if}}
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Run the migrations.
+     */
+    public function up(): void
+    {
+        Schema::create('{{tableName}}', function (Blueprint $table) {
+{{#each migrationColumns}}
+            $table->{{definition}};
+{{/each}}
+{{#unless migrationRawColumns}}
+{{#each migrationIndexes}}
+            $table->{{definition}};{{comment}}
+{{/each}}
+{{/unless}}
+        });
+{{#if migrationRawColumns}}
+
+        // Types Blueprint has no exact equivalent for
+{{#each migrationRawColumns}}
+        DB::statement('{{statement}}');
+{{/each}}
+{{#if migrationIndexes}}
+
+        Schema::table('{{tableName}}', function (Blueprint $table) {
+{{#each migrationIndexes}}
+            $table->{{definition}};{{comment}}
+{{/each}}
+        });
+{{/if}}
+{{/if}}
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::dropIfExists('{{tableName}}');
+    }
+};
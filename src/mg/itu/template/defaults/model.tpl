@@ -0,0 +1,56 @@
+<?php
+
+namespace App\Models;
+
+use Illuminate\Database\Eloquent\Factories\HasFactory;
+use Illuminate\Database\Eloquent\Model;
+
+class {{modelName}} extends Model
+{
+    use HasFactory;
+
+    protected $table = '{{tableName}}';
+
+    protected $fillable = [
+{{#each fillable}}
+        '{{name}}',
+{{/each}}
+    ];
+
+{{#if casts}}
+    protected $casts = [
+{{#each casts}}
+        '{{name}}' => '{{cast}}',
+{{/each}}
+    ];
+{{/if}}
+{{#each relationships}}
+
+    /**
+     * Get the {{relatedTable}} that this {{tableName}} belongs to.
+     */
+    public function {{methodName}}()
+    {
+        return $this->belongsTo({{relatedModel}}::class, '{{foreignKey}}', '{{ownerKey}}');
+    }
+{{/each}}
+{{#each inverseRelationships}}
+
+    /**
+{{#if hasOne}}
+     * Get the {{relatedTable}} row that references this {{tableName}} row through {{foreignKey}}.
+     */
+    public function {{methodName}}()
+    {
+        return $this->hasOne({{relatedModel}}::class, '{{foreignKey}}', '{{localKey}}');
+    }
+{{else}}
+     * Get the {{relatedTable}} that reference this {{tableName}} row through {{foreignKey}}.
+     */
+    public function {{methodName}}()
+    {
+        return $this->hasMany({{relatedModel}}::class, '{{foreignKey}}', '{{localKey}}');
+    }
+{{/if}}
+{{/each}}
+}
@@ -0,0 +1,29 @@
+<?php
+
+namespace App\Providers;
+
+use Illuminate\Database\Eloquent\Model;
+use Illuminate\Support\ServiceProvider;
+
+/**
+ * Guards the generated API against N+1 queries: touching a relation that was not eager loaded
+ * throws outside production, and is logged in production. Register it in config/app.php.
+ */
+class CrudServiceProvider extends ServiceProvider
+{
+    /**
+     * Bootstrap any application services.
+     *
+     * @return void
+     */
+    public function boot(): void
+    {
+        Model::preventLazyLoading();
+
+        if ($this->app->isProduction()) {
+            Model::handleLazyLoadingViolationUsing(function (Model $model, string $relation) {
+                logger()->warning('Lazy loading of ' . get_class($model) . '::' . $relation);
+            });
+        }
+    }
+}
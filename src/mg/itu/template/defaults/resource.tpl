@@ -0,0 +1,60 @@
+<?php
+
+namespace App\Http\Resources;
+
+use Illuminate\Http\Request;
+use Illuminate\Http\Resources\Json\JsonResource;
+{{#if hasDates}}
+use Illuminate\Support\Carbon;
+{{/if}}
+
+/**
+ * JSON representation of the {{modelName}} model: a flat map of its columns, converted from the
+ * raw attributes, followed by the relations that were eager loaded.
+ *
+ * @mixin \App\Models\{{modelName}}
+ */
+class {{resourceName}} extends JsonResource
+{
+    /**
+     * Transform the {{variableName}} into an array. Columns that were not selected (see ?fields=)
+     * are left out.
+     *
+     * @param Request $request
+     * @return array
+     */
+    public function toArray(Request $request): array
+    {
+        $attributes = $this->resource->getAttributes();
+        $data = [];
+{{#each columns}}
+        if (array_key_exists('{{name}}', $attributes)) {
+            $data['{{name}}'] = {{resourceValue}};
+        }
+{{/each}}
+{{#each countRelationships}}
+        if (array_key_exists('{{countAttribute}}', $attributes)) {
+            $data['{{countAttribute}}'] = (int) $attributes['{{countAttribute}}'];
+        }
+{{/each}}
+{{#each relationships}}
+{{#if relatedGenerated}}
+        $data['{{methodName}}'] = {{relatedModel}}Resource::make($this->whenLoaded('{{methodName}}'));
+{{else}}
+        $data['{{methodName}}'] = $this->whenLoaded('{{methodName}}');
+{{/if}}
+{{/each}}
+{{#each inverseRelationships}}
+{{#if relatedGenerated}}
+{{#if hasOne}}
+        $data['{{methodName}}'] = {{relatedModel}}Resource::make($this->whenLoaded('{{methodName}}'));
+{{else}}
+        $data['{{methodName}}'] = {{relatedModel}}Resource::collection($this->whenLoaded('{{methodName}}'));
+{{/if}}
+{{else}}
+        $data['{{methodName}}'] = $this->whenLoaded('{{methodName}}');
+{{/if}}
+{{/each}}
+        return $data;
+    }
+}
@@ -0,0 +1,25 @@
+<?php
+
+use Illuminate\Support\Facades\Route;
+use App\Http\Controllers\{{controllerName}};
+
+// Routes for {{modelName}} CRUD operations
+{{#if export}}
+// Declared before the resource so that "export" is not taken for an id
+Route::get('/{{routeName}}/export', [{{controllerName}}::class, 'export']);
+{{/if}}
+{{#if bulk}}
+// Declared before the resource so that "bulk" is not taken for an id
+Route::post('/{{routeName}}/bulk', [{{controllerName}}::class, 'bulkStore']);
+Route::patch('/{{routeName}}/bulk', [{{controllerName}}::class, 'bulkUpdate']);
+Route::delete('/{{routeName}}/bulk', [{{controllerName}}::class, 'bulkDestroy']);
+{{/if}}
+Route::apiResource('{{routeName}}', {{controllerName}}::class);
+
+/* The above apiResource route is equivalent to:
+Route::get('/{{routeName}}', [{{controllerName}}::class, 'index']);
+Route::post('/{{routeName}}', [{{controllerName}}::class, 'store']);
+Route::get('/{{routeName}}/{id}', [{{controllerName}}::class, 'show']);
+Route::put('/{{routeName}}/{id}', [{{controllerName}}::class, 'update']);
+Route::delete('/{{routeName}}/{id}', [{{controllerName}}::class, 'destroy']);
+*/
@@ -0,0 +1,642 @@
+<?php
+
+namespace App\Services;
+
+use App\Models\{{modelName}};
+{{#if cache}}
+use Closure;
+{{/if}}
+{{#if offsetPagination}}
+use Illuminate\Contracts\Pagination\LengthAwarePaginator;
+{{/if}}
+{{#if cursorPagination}}
+use Illuminate\Contracts\Pagination\CursorPaginator;
+{{/if}}
+{{#unless paginated}}
+use Illuminate\Database\Eloquent\Collection;
+{{/unless}}
+{{#if bulk}}
+use Illuminate\Database\Eloquent\ModelNotFoundException;
+use Illuminate\Support\Arr;
+use Illuminate\Support\Facades\DB;
+{{/if}}
+{{#if conditional}}
+use Illuminate\Support\Carbon;
+{{/if}}
+{{#if export}}
+use Illuminate\Support\LazyCollection;
+{{/if}}
+{{#if cache}}
+use Illuminate\Cache\TaggableStore;
+{{#if offsetPagination}}
+use Illuminate\Pagination\Paginator;
+{{/if}}
+{{#if cursorPagination}}
+use Illuminate\Pagination\CursorPaginator as CursorPaginatorResolver;
+{{/if}}
+use Illuminate\Support\Facades\Cache;
+{{/if}}
+
+class {{serviceName}}
+{
+    /**
+     * Relations that can be eager loaded: the eager load of each, in which large columns of the
+     * related models are not selected, and the column it needs on this side to match them.
+     */
+    private const INCLUDES = [
+{{#each relationships}}
+        '{{methodName}}' => ['with' => '{{methodName}}{{#if selectColumns}}:{{selectColumns}}{{/if}}', 'column' => '{{foreignKey}}'],
+{{/each}}
+{{#each inverseRelationships}}
+        '{{methodName}}' => ['with' => '{{methodName}}{{#if selectColumns}}:{{selectColumns}}{{/if}}', 'column' => '{{localKey}}'],
+{{/each}}
+{{#unless relationships}}
+{{#unless inverseRelationships}}
+        // No relationships detected
+{{/unless}}
+{{/unless}}
+    ];
+
+    /**
+     * Relations whose rows can be counted with ?count=, in a subquery of the same statement.
+     */
+    private const COUNTABLE = [{{#each countRelationships}}{{#unless @first}}, {{/unless}}'{{methodName}}'{{/each}}];
+
+    /**
+     * Columns clients may select with ?fields=.
+     */
+    private const FIELDS = [
+{{#each columns}}
+        '{{name}}',
+{{/each}}
+    ];
+
+    /**
+     * Columns selected whatever the requested fields: the primary key and the pagination order.
+     */
+    private const KEY_COLUMNS = [{{#each orderColumns}}{{#unless @first}}, {{/unless}}'{{name}}'{{/each}}];
+
+    /**
+     * Columns clients may filter on with ?filter[column]=value: those an index can look up.
+     */
+    private const FILTERABLE = [{{#each filterableColumns}}{{#unless @first}}, {{/unless}}'{{name}}'{{/each}}];
+
+    /**
+     * Columns clients may sort on with ?sort=: those a btree index returns in order.
+     * Sorting on any other column would read and sort the whole table.
+     */
+    private const SORTABLE = [{{#each sortableColumns}}{{#unless @first}}, {{/unless}}'{{name}}'{{/each}}];
+{{#if cache}}
+
+    /**
+     * Seconds a cached read lives for. Writes through this service invalidate it before that:
+     * the '{{tableName}}' tag covers listings, the '{{tableName}}:<id>' tags single {{variableName}}s.
+     */
+    private const CACHE_TTL = {{cacheTtl}};
+{{/if}}
+{{#if bulk}}
+
+    /**
+     * SQL type of each column, to type the VALUES list of a bulk update.
+     */
+    private const COLUMN_TYPES = [
+{{#each columns}}
+        '{{name}}' => '{{sqlType}}',
+{{/each}}
+    ];
+{{/if}}
+
+{{#if offsetPagination}}
+    /**
+     * Get a page of {{variableName}}s in a stable order.
+     *
+     * @param int $perPage
+     * @param array $options include, fields, count, filter and sort, as validated by the controller
+     * @return LengthAwarePaginator
+     */
+    public function paginate(int $perPage, array $options = []): LengthAwarePaginator
+    {
+{{#if cache}}
+        $key = $this->cacheKey('{{tableName}}:page:' . Paginator::resolveCurrentPage() . ':' . $perPage, $options);
+        return $this->remember(['{{tableName}}'], $key, fn () => $this->getOrderedQuery($options)->paginate($perPage));
+{{else}}
+        return $this->getOrderedQuery($options)->paginate($perPage);
+{{/if}}
+    }
+{{/if}}
+{{#if cursorPagination}}
+    /**
+     * Get the page of {{variableName}}s following the request cursor. Seeks on an ordered
+     * unique key, so deep pages cost the same as the first one.
+     *
+     * @param int $perPage
+     * @param array $options include, fields, count, filter and sort, as validated by the controller
+     * @return CursorPaginator
+     */
+    public function cursorPaginate(int $perPage, array $options = []): CursorPaginator
+    {
+{{#if cache}}
+        $cursor = CursorPaginatorResolver::resolveCurrentCursor()?->encode() ?? 'first';
+        $key = $this->cacheKey('{{tableName}}:cursor:' . $cursor . ':' . $perPage, $options);
+        return $this->remember(['{{tableName}}'], $key, fn () => $this->getOrderedQuery($options)->cursorPaginate($perPage));
+{{else}}
+        return $this->getOrderedQuery($options)->cursorPaginate($perPage);
+{{/if}}
+    }
+{{/if}}
+{{#unless paginated}}
+    /**
+     * Get all {{variableName}}s.
+     *
+     * @param array $options include, fields, count, filter and sort, as validated by the controller
+     * @return Collection
+     */
+    public function getAll(array $options = []): Collection
+    {
+{{#if cache}}
+        $key = $this->cacheKey('{{tableName}}:all', $options);
+        return $this->remember(['{{tableName}}'], $key, fn () => $this->getOrderedQuery($options)->get());
+{{else}}
+        return $this->getOrderedQuery($options)->get();
+{{/if}}
+    }
+{{/unless}}
+
+{{#if export}}
+    /**
+     * Iterate over every {{variableName}} in primary key order. Rows are fetched {{exportChunkSize}} at a
+     * time with keyset queries, so only one chunk is held in memory whatever the table size.
+     *
+     * @return LazyCollection
+     */
+    public function lazyAll(): LazyCollection
+    {
+        return {{modelName}}::query()->lazyById({{exportChunkSize}}, '{{primaryKey}}');
+    }
+
+{{/if}}
+    /**
+     * Find {{variableName}} by ID.
+     *
+     * @param int $id
+     * @param array $options include, fields, count, filter and sort, as validated by the controller
+     * @return {{modelName}}|null
+     */
+    public function findById(int $id, array $options = []): ?{{modelName}}
+    {
+{{#if cache}}
+        $key = $this->cacheKey('{{tableName}}:' . $id, $options);
+        return $this->remember(['{{tableName}}:' . $id], $key, fn () => $this->getQuery($options)->find($id));
+{{else}}
+        return $this->getQuery($options)->find($id);
+{{/if}}
+    }
+
+{{#if conditional}}
+    /**
+     * Version of the {{variableName}}, read without loading the row: its updated_at, and the
+     * transaction id that last wrote the row (PostgreSQL's xmin). updated_at is usually stored to
+     * the second, xmin changes on every write, even two in the same second.
+     *
+     * @param int $id
+     * @return array [Carbon|null, string|null] nulls when there is no such {{variableName}}
+     */
+    public function version(int $id): array
+    {
+        $version = {{modelName}}::query()
+            ->toBase()
+            ->where('{{primaryKey}}', $id)
+            ->selectRaw('updated_at, xmin::text as row_version')
+            ->first();
+        if (!$version) {
+            return [null, null];
+        }
+        return [$version->updated_at ? Carbon::parse($version->updated_at) : null, $version->row_version];
+    }
+
+    /**
+     * Version of a listing: the number of matching {{variableName}}s, their latest updated_at and
+     * the sum of their xmin, read with one aggregate query. Any insert, update or delete changes the
+     * count or the sum, even two writes in the second updated_at is stored to.
+     *
+     * @param array $filter column => value, as validated by the controller
+     * @return array [count, Carbon|null, string]
+     */
+    public function listVersion(array $filter = []): array
+    {
+        $version = $this->getQuery(['filter' => $filter])
+            ->toBase()
+            ->selectRaw('count(*) as aggregate_count, max(updated_at) as aggregate_updated_at, '
+                . 'coalesce(sum(xmin::text::bigint), 0)::text as aggregate_version')
+            ->first();
+        return [
+            (int) $version->aggregate_count,
+            $version->aggregate_updated_at ? Carbon::parse($version->aggregate_updated_at) : null,
+            $version->aggregate_version
+        ];
+    }
+
+{{/if}}
+    /**
+     * Create a new {{variableName}}.
+     *
+     * @param array $data
+     * @return {{modelName}}
+     */
+    public function create(array $data): {{modelName}}
+    {
+{{#if cache}}
+        ${{variableName}} = {{modelName}}::create($data);
+        $this->forget(['{{tableName}}']);
+        return ${{variableName}};
+{{else}}
+        return {{modelName}}::create($data);
+{{/if}}
+    }
+
+    /**
+     * Update the specified {{variableName}} with a single UPDATE ... RETURNING statement.
+     * Casts and mutators still apply, but Eloquent model events are not fired.
+     *
+     * @param int $id
+     * @param array $data
+     * @return {{modelName}}|null null when there is no such {{variableName}}
+     */
+    public function update(int $id, array $data): ?{{modelName}}
+    {
+        // A model instance converts the data to column values
+        $changes = new {{modelName}}();
+        $changes->fill($data);
+{{#if updatedAt}}
+        $changes->setUpdatedAt($changes->freshTimestamp());
+{{/if}}
+        $values = $changes->getAttributes();
+        if (!$values) {
+            return {{modelName}}::find($id);
+        }
+
+        $query = {{modelName}}::query()->where('{{primaryKey}}', $id)->toBase();
+        $grammar = $query->getGrammar();
+        $rows = $query->getConnection()->select(
+            $grammar->compileUpdate($query, $values) . ' returning *',
+            $grammar->prepareBindingsForUpdate($query->getRawBindings(), $values),
+            false
+        );
+        if (!$rows) {
+            return null;
+        }
+{{#if cache}}
+
+        $this->forget(['{{tableName}}', '{{tableName}}:' . $id]);
+{{/if}}
+        return {{modelName}}::hydrate($rows)->first();
+    }
+
+    /**
+     * Delete the specified {{variableName}} with a single DELETE statement.
+     * Eloquent model events are not fired.
+     *
+     * @param int $id
+     * @return bool false when there was no such {{variableName}}
+     */
+    public function delete(int $id): bool
+    {
+        $deleted = {{modelName}}::query()->where('{{primaryKey}}', $id)->delete() > 0;
+{{#if cache}}
+        if ($deleted) {
+            $this->forget(['{{tableName}}', '{{tableName}}:' . $id]);
+        }
+{{/if}}
+        return $deleted;
+    }
+
+{{#if bulk}}
+    /**
+     * Insert {{variableName}}s in one transaction, {{bulkChunkSize}} rows per INSERT statement.
+     *
+     * @param array $rows validated rows
+     * @return array primary keys of the new {{variableName}}s
+     */
+    public function bulkCreate(array $rows): array
+    {
+        $ids = DB::transaction(function () use ($rows) {
+            $ids = [];
+            foreach ($this->toChunks($rows, true) as $chunk) {
+                $query = {{modelName}}::query()->toBase();
+                $grammar = $query->getGrammar();
+                $inserted = $query->getConnection()->select(
+                    $grammar->compileInsert($query, $chunk) . ' returning ' . $grammar->wrap('{{primaryKey}}'),
+                    $query->cleanBindings(Arr::flatten($chunk, 1)),
+                    false
+                );
+                array_push($ids, ...array_column($inserted, '{{primaryKey}}'));
+            }
+            return $ids;
+        });
+{{#if cache}}
+
+        $this->forget(['{{tableName}}']);
+{{/if}}
+        return $ids;
+    }
+
+    /**
+     * Update {{variableName}}s in one transaction, {{bulkChunkSize}} rows per UPDATE ... FROM (VALUES ...)
+     * statement. Each row only changes the columns it carries. Nothing is updated if an id is unknown.
+     *
+     * @param array $rows validated rows, each with its {{primaryKey}}
+     * @return int number of updated {{variableName}}s
+     * @throws ModelNotFoundException listing the unknown ids
+     */
+    public function bulkUpdate(array $rows): int
+    {
+        $ids = DB::transaction(function () use ($rows) {
+            $ids = [];
+            foreach ($this->toChunks($rows, false) as $chunk) {
+                array_push($ids, ...$this->updateChunk($chunk));
+            }
+            $this->failOnMissing(array_column($rows, '{{primaryKey}}'), $ids);
+            return $ids;
+        });
+{{#if cache}}
+
+        $this->forget(array_merge(['{{tableName}}'], array_map(fn ($id) => '{{tableName}}:' . $id, $ids)));
+{{/if}}
+        return count($ids);
+    }
+
+    /**
+     * Delete {{variableName}}s in one transaction, {{bulkChunkSize}} ids per DELETE statement.
+     * Nothing is deleted if an id is unknown.
+     *
+     * @param array $ids
+     * @return int number of deleted {{variableName}}s
+     * @throws ModelNotFoundException listing the unknown ids
+     */
+    public function bulkDelete(array $ids): int
+    {
+        DB::transaction(function () use ($ids) {
+            $deleted = [];
+            foreach (array_chunk($ids, {{bulkChunkSize}}) as $chunk) {
+                $query = {{modelName}}::query()->whereIn('{{primaryKey}}', $chunk)->toBase();
+                $grammar = $query->getGrammar();
+                $rows = $query->getConnection()->select(
+                    $grammar->compileDelete($query) . ' returning ' . $grammar->wrap('{{primaryKey}}'),
+                    $grammar->prepareBindingsForDelete($query->getRawBindings()),
+                    false
+                );
+                array_push($deleted, ...array_column($rows, '{{primaryKey}}'));
+            }
+            $this->failOnMissing($ids, $deleted);
+        });
+{{#if cache}}
+
+        $this->forget(array_merge(['{{tableName}}'], array_map(fn ($id) => '{{tableName}}:' . $id, $ids)));
+{{/if}}
+        return count($ids);
+    }
+
+{{/if}}
+    /**
+     * Relations clients may ask for with ?include=.
+     *
+     * @return array
+     */
+    public function allowedIncludes(): array
+    {
+        return array_keys(self::INCLUDES);
+    }
+
+    /**
+     * Columns clients may ask for with ?fields=.
+     *
+     * @return array
+     */
+    public function allowedFields(): array
+    {
+        return self::FIELDS;
+    }
+
+    /**
+     * Relations clients may ask to count with ?count=.
+     *
+     * @return array
+     */
+    public function allowedCounts(): array
+    {
+        return self::COUNTABLE;
+    }
+
+    /**
+     * Columns clients may ask for with ?filter[column]=.
+     *
+     * @return array
+     */
+    public function allowedFilters(): array
+    {
+        return self::FILTERABLE;
+    }
+
+    /**
+     * Columns clients may ask for with ?sort=.
+     *
+     * @return array
+     */
+    public function allowedSorts(): array
+    {
+        return self::SORTABLE;
+    }
+
+    /**
+     * Get query eager loading only the requested relations, with the columns listed in INCLUDES.
+     * Without includes, listing {{variableName}}s is a single query. When fields are given, only
+     * those are selected, plus the key and sort columns and the columns the includes need.
+     *
+     * @param array $options include, fields, count, filter and sort, as validated by the controller
+     * @return \Illuminate\Database\Eloquent\Builder
+     */
+    private function getQuery(array $options = [])
+    {
+        $includes = $options['include'] ?? [];
+        $fields = $options['fields'] ?? [];
+
+        $query = {{modelName}}::query();
+        if ($fields) {
+            $columns = array_merge(self::KEY_COLUMNS, array_keys($options['sort'] ?? []));
+            foreach ($includes as $include) {
+                $columns[] = self::INCLUDES[$include]['column'];
+            }
+            $query->select(array_values(array_unique(array_merge($columns, $fields))));
+        }
+        if ($options['count'] ?? []) {
+            $query->withCount($options['count']);
+        }
+        foreach ($options['filter'] ?? [] as $column => $value) {
+            $query->where($column, $value);
+        }
+        foreach ($includes as $include) {
+            $query->with(self::INCLUDES[$include]['with']);
+        }
+        return $query;
+    }
+
+    /**
+     * Get query ordered by the requested sort, then by the key columns so that pages are stable.
+     *
+     * @param array $options include, fields, count, filter and sort, as validated by the controller
+     * @return \Illuminate\Database\Eloquent\Builder
+     */
+    private function getOrderedQuery(array $options = [])
+    {
+        $query = $this->getQuery($options);
+        $sort = $options['sort'] ?? [];
+        foreach ($sort as $column => $direction) {
+            $query->orderBy($column, $direction);
+        }
+        foreach (self::KEY_COLUMNS as $column) {
+            if (!isset($sort[$column])) {
+                $query->orderBy($column);
+            }
+        }
+        return $query;
+    }
+{{#if bulk}}
+
+    /**
+     * Convert validated rows to column values through the model casts and mutators, then split
+     * them in chunks of at most {{bulkChunkSize}} rows having the same columns, as a multi-row statement needs.
+     *
+     * @param array $rows
+     * @param bool $creating
+     * @return array
+     */
+    private function toChunks(array $rows, bool $creating): array
+    {
+{{#if timestamps}}
+        $now = (new {{modelName}}())->freshTimestamp();
+{{/if}}
+        $groups = [];
+        foreach ($rows as $row) {
+            ${{variableName}} = new {{modelName}}();
+            ${{variableName}}->fill($row);
+{{#if createdAt}}
+            if ($creating) {
+                ${{variableName}}->setCreatedAt($now);
+            }
+{{/if}}
+{{#if updatedAt}}
+            ${{variableName}}->setUpdatedAt($now);
+{{/if}}
+            $values = ${{variableName}}->getAttributes();
+            if (!$creating) {
+                $values = ['{{primaryKey}}' => $row['{{primaryKey}}']] + $values;
+            }
+            $groups[implode(',', array_keys($values))][] = $values;
+        }
+
+        $chunks = [];
+        foreach ($groups as $group) {
+            array_push($chunks, ...array_chunk($group, {{bulkChunkSize}}));
+        }
+        return $chunks;
+    }
+
+    /**
+     * Update a chunk of rows having the same columns with a single statement, joining the table
+     * to a typed VALUES list on the primary key.
+     *
+     * @param array $chunk
+     * @return array primary keys of the updated rows
+     */
+    private function updateChunk(array $chunk): array
+    {
+        $query = {{modelName}}::query()->toBase();
+        $grammar = $query->getGrammar();
+        $key = $grammar->wrap('{{primaryKey}}');
+        $columns = array_keys($chunk[0]);
+
+        $row = '(' . implode(', ', array_map(fn ($column) => '?::' . self::COLUMN_TYPES[$column], $columns)) . ')';
+        $assignments = [];
+        foreach (array_diff($columns, ['{{primaryKey}}']) ?: $columns as $column) {
+            $assignments[] = $grammar->wrap($column) . ' = v.' . $grammar->wrap($column);
+        }
+
+        $sql = 'update ' . $grammar->wrapTable('{{tableName}}') . ' as t set ' . implode(', ', $assignments)
+            . ' from (values ' . implode(', ', array_fill(0, count($chunk), $row)) . ') as v (' . $grammar->columnize($columns) . ')'
+            . ' where t.' . $key . ' = v.' . $key
+            . ' returning t.' . $key;
+        $rows = $query->getConnection()->select($sql, $query->cleanBindings(Arr::flatten($chunk, 1)), false);
+        return array_column($rows, '{{primaryKey}}');
+    }
+
+    /**
+     * Abort the transaction when some of the requested ids were not found.
+     *
+     * @param array $ids
+     * @param array $found
+     * @return void
+     * @throws ModelNotFoundException
+     */
+    private function failOnMissing(array $ids, array $found): void
+    {
+        $missing = array_values(array_diff($ids, $found));
+        if ($missing) {
+            throw (new ModelNotFoundException())->setModel({{modelName}}::class, $missing);
+        }
+    }
+{{/if}}
+{{#if cache}}
+
+    /**
+     * Cache key of a read: variants with includes, fields, counts, filters or sorts get keys of their own.
+     *
+     * @param string $base
+     * @param array $options
+     * @return string
+     */
+    private function cacheKey(string $base, array $options): string
+    {
+        $options = array_filter($options);
+        return $options ? $base . ':' . md5(json_encode($options)) : $base;
+    }
+
+    /**
+     * Read through the cache. Stores without tags (file, database) get the tag versions folded
+     * into the key instead, so invalidation works with every cache driver.
+     *
+     * @param array $tags
+     * @param string $key
+     * @param Closure $callback
+     * @return mixed
+     */
+    private function remember(array $tags, string $key, Closure $callback)
+    {
+        if (Cache::getStore() instanceof TaggableStore) {
+            return Cache::tags($tags)->remember($key, self::CACHE_TTL, $callback);
+        }
+        foreach ($tags as $tag) {
+            $key .= ':v' . Cache::get('tag-version:' . $tag, 0);
+        }
+        return Cache::remember($key, self::CACHE_TTL, $callback);
+    }
+
+    /**
+     * Invalidate every cached read carrying one of the tags.
+     *
+     * @param array $tags
+     * @return void
+     */
+    private function forget(array $tags): void
+    {
+        foreach ($tags as $tag) {
+            if (Cache::getStore() instanceof TaggableStore) {
+                Cache::tags([$tag])->flush();
+            } else {
+                // increment() does not create missing keys on every store
+                Cache::add('tag-version:' . $tag, 0);
+                Cache::increment('tag-version:' . $tag);
+            }
+        }
+    }
+{{/if}}
+}
@@ -0,0 +1,223 @@
+package mg.itu.utils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Turns table and column names into class, method and attribute names: singular forms and case
+ * conversions. Every name the generator derives goes through here.
+ *
+ * Singulars are looked up in a list of irregular and uninflected words, then in an ordered table of
+ * suffix rules, on the last word of a snake_case name: {@code order_statuses} becomes {@code order_status}.
+ * Results are memoized in concurrent maps shared by the generator threads; a map past its capacity is
+ * cleared rather than evicted entry by entry, which keeps lookups lock-free.
+ */
+public final class Inflector {
+
+    private static final int CACHE_CAPACITY = 8192;
+
+    private static final Map<String, String> IRREGULAR_SINGULARS = Map.ofEntries(
+        Map.entry("people", "person"),
+        Map.entry("men", "man"),
+        Map.entry("women", "woman"),
+        Map.entry("children", "child"),
+        Map.entry("mice", "mouse"),
+        Map.entry("geese", "goose"),
+        Map.entry("feet", "foot"),
+        Map.entry("teeth", "tooth"),
+        Map.entry("oxen", "ox"),
+        Map.entry("criteria", "criterion"),
+        Map.entry("phenomena", "phenomenon"),
+        Map.entry("analyses", "analysis"),
+        Map.entry("crises", "crisis"),
+        Map.entry("theses", "thesis"),
+        Map.entry("diagnoses", "diagnosis"),
+        Map.entry("indices", "index"),
+        Map.entry("matrices", "matrix"),
+        Map.entry("vertices", "vertex"),
+        Map.entry("leaves", "leaf"),
+        Map.entry("lives", "life"),
+        Map.entry("wives", "wife"),
+        Map.entry("knives", "knife"),
+        Map.entry("halves", "half"),
+        Map.entry("wolves", "wolf"),
+        Map.entry("shelves", "shelf"),
+        Map.entry("thieves", "thief"),
+        Map.entry("movies", "movie"),
+        Map.entry("cookies", "cookie"),
+        Map.entry("zombies", "zombie"),
+        Map.entry("calories", "calorie"),
+        Map.entry("ties", "tie"),
+        Map.entry("pies", "pie"),
+        Map.entry("axes", "axis"),
+        Map.entry("oases", "oasis"),
+        Map.entry("gases", "gas"),
+        Map.entry("lenses", "lens"),
+        Map.entry("atlases", "atlas"),
+        Map.entry("canvases", "canvas"),
+        Map.entry("shoes", "shoe"),
+        Map.entry("toes", "toe"),
+        Map.entry("canoes", "canoe"),
+        Map.entry("quizzes", "quiz"),
+        Map.entry("statuses", "status"),
+        Map.entry("aliases", "alias"),
+        Map.entry("buses", "bus"),
+        Map.entry("viruses", "virus"),
+        Map.entry("campuses", "campus"),
+        Map.entry("bonuses", "bonus"),
+        Map.entry("censuses", "census")
+    );
+
+    private static final Set<String> UNINFLECTED = Set.of(
+        "data", "metadata", "equipment", "information", "news", "series", "species", "sheep", "fish",
+        "deer", "money", "rice", "feedback", "staff", "software", "hardware"
+    );
+
+    // Singulars ending in "che", whose plural only takes an s, unlike branches or matches
+    private static final Set<String> CHE_SINGULARS = Set.of(
+        "ache", "headache", "toothache", "backache", "avalanche", "cache", "cliche", "creche", "fiche",
+        "microfiche", "moustache", "mustache", "niche", "psyche", "quiche"
+    );
+
+    // Suffix rules, first match wins: { plural suffix, singular suffix }
+    private static final List<String[]> SINGULAR_RULES = List.of(
+        new String[] { "sses", "ss" },
+        new String[] { "shes", "sh" },
+        new String[] { "ches", "ch" },
+        new String[] { "xes", "x" },
+        new String[] { "zes", "ze" },
+        new String[] { "oes", "o" },
+        new String[] { "ses", "se" },
+        new String[] { "ies", "y" },
+        // Already singular
+        new String[] { "ss", "ss" },
+        new String[] { "us", "us" },
+        new String[] { "is", "is" },
+        new String[] { "s", "" }
+    );
+
+    private static final Map<String, String> SINGULARS = new ConcurrentHashMap<>();
+    private static final Map<String, String> PASCAL_CASES = new ConcurrentHashMap<>();
+    private static final Map<String, String> CAMEL_CASES = new ConcurrentHashMap<>();
+    private static final Map<String, String> SNAKE_CASES = new ConcurrentHashMap<>();
+
+    private Inflector() {
+    }
+
+    /**
+     * order_items becomes order_item, statuses status, people person.
+     */
+    public static String singular(String plural) {
+        return memoize(SINGULARS, plural, Inflector::computeSingular);
+    }
+
+    /**
+     * order_items becomes OrderItems; underscores, dashes and spaces separate words.
+     */
+    public static String pascalCase(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+        return memoize(PASCAL_CASES, input, Inflector::computePascalCase);
+    }
+
+    /**
+     * order_items becomes orderItems, OrderItem orderItem.
+     */
+    public static String camelCase(String input) {
+        if (input == null || input.isEmpty()) {
+            return input;
+        }
+        return memoize(CAMEL_CASES, input, word -> {
+            String pascal = pascalCase(word);
+            return Character.toLowerCase(pascal.charAt(0)) + pascal.substring(1);
+        });
+    }
+
+    /**
+     * orderItems becomes order_items, as Laravel's Str::snake() does.
+     */
+    public static String snakeCase(String input) {
+        return memoize(SNAKE_CASES, input, Inflector::computeSnakeCase);
+    }
+
+    private static String memoize(Map<String, String> cache, String input, Function<String, String> conversion) {
+        String result = cache.get(input);
+        if (result == null) {
+            result = conversion.apply(input);
+            if (cache.size() >= CACHE_CAPACITY) {
+                cache.clear();
+            }
+            cache.put(input, result);
+        }
+        return result;
+    }
+
+    private static String computeSingular(String plural) {
+        int wordStart = plural.lastIndexOf('_') + 1;
+        String prefix = plural.substring(0, wordStart);
+        String word = plural.substring(wordStart);
+        String lowerWord = word.toLowerCase(Locale.ROOT);
+
+        if (UNINFLECTED.contains(lowerWord)) {
+            return plural;
+        }
+        String irregular = IRREGULAR_SINGULARS.get(lowerWord);
+        if (irregular != null) {
+            // People keeps its capital: Person
+            if (!word.isEmpty() && Character.isUpperCase(word.charAt(0))) {
+                irregular = Character.toUpperCase(irregular.charAt(0)) + irregular.substring(1);
+            }
+            return prefix + irregular;
+        }
+        if (lowerWord.endsWith("ches") && CHE_SINGULARS.contains(lowerWord.substring(0, lowerWord.length() - 1))) {
+            return plural.substring(0, plural.length() - 1);
+        }
+
+        for (String[] rule : SINGULAR_RULES) {
+            if (lowerWord.endsWith(rule[0]) && word.length() > rule[0].length()) {
+                return prefix + word.substring(0, word.length() - rule[0].length()) + rule[1];
+            }
+        }
+        return plural;
+    }
+
+    private static String computePascalCase(String input) {
+        StringBuilder result = new StringBuilder(input.length());
+        boolean capitalizeNext = true;
+
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '_' || c == '-' || c == ' ') {
+                capitalizeNext = true;
+            } else if (capitalizeNext) {
+                result.append(Character.toUpperCase(c));
+                capitalizeNext = false;
+            } else {
+                result.append(c);
+            }
+        }
+
+        return result.toString();
+    }
+
+    private static String computeSnakeCase(String input) {
+        StringBuilder result = new StringBuilder(input.length() + 4);
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    result.append('_');
+                }
+                result.append(Character.toLowerCase(c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}